@@ -22,18 +22,24 @@ public class ProcessorGenerator {
     private final Naming naming;
     private final File rootDirectory;
     private final HandlersHelper helper;
+    private final boolean routeMetrics;
 
     public ProcessorGenerator(String serverPackage, String typesPackage, String apiPackage, File toDirectory) {
+        this(serverPackage, typesPackage, apiPackage, toDirectory, false);
+    }
+
+    public ProcessorGenerator(String serverPackage, String typesPackage, String apiPackage, File toDirectory, boolean routeMetrics) {
         this.serverPackage = serverPackage;
         this.typesPackage = typesPackage;
         this.apiPackage = apiPackage;
         this.rootDirectory = toDirectory;
         this.naming = new Naming();
         this.helper = new HandlersHelper(this.apiPackage, this.naming);
+        this.routeMetrics = routeMetrics;
     }
 
     public void generate(RamlModelResult ramlModel) throws IOException {
-        TypeSpec processorClass = new ProcessorClass(this.typesPackage, this.apiPackage, this.naming, this.helper).type(ramlModel);
+        TypeSpec processorClass = new ProcessorClass(this.typesPackage, this.apiPackage, this.naming, this.helper, this.routeMetrics).type(ramlModel);
         writeJavaFile(
                 packageDir(this.rootDirectory, this.serverPackage),
                 this.serverPackage,
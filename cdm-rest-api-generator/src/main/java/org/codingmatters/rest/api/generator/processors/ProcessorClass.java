@@ -8,8 +8,14 @@ import org.codingmatters.rest.api.ResponseDelegate;
 import org.codingmatters.rest.api.generator.exception.UnsupportedMediaTypeException;
 import org.codingmatters.rest.api.generator.handlers.HandlersHelper;
 import org.codingmatters.rest.api.generator.processors.requests.ProcessorParameter;
+import org.codingmatters.rest.api.generator.processors.requests.ProcessorRequestBodyReaderStatement;
 import org.codingmatters.rest.api.generator.type.SupportedMediaType;
 import org.codingmatters.rest.api.generator.utils.DeclaredTypeRegistry;
+import org.codingmatters.rest.api.metrics.PhaseListener;
+import org.codingmatters.rest.api.metrics.PhaseTimer;
+import org.codingmatters.rest.api.metrics.RouteMetrics;
+import org.codingmatters.rest.api.routing.RouteProcessor;
+import org.codingmatters.rest.api.routing.RouteTrie;
 import org.codingmatters.value.objects.generation.Naming;
 import org.codingmatters.rest.api.generator.utils.Parameter;
 import org.codingmatters.rest.api.generator.utils.Resolver;
@@ -39,14 +45,24 @@ public class ProcessorClass {
     private final String apiPackage;
     private final Naming naming;
     private final HandlersHelper helper;
+    private final boolean routeMetrics;
 
     private final ProcessorResponse processorResponse;
 
     public ProcessorClass(String typesPackage, String apiPackage, Naming naming, HandlersHelper helper) {
+        this(typesPackage, apiPackage, naming, helper, false);
+    }
+
+    /**
+     * @param routeMetrics when true, the generated processor records latencies, payload sizes and statuses by route
+     *                     in a {@link RouteMetrics} exposed through its metrics() method.
+     */
+    public ProcessorClass(String typesPackage, String apiPackage, Naming naming, HandlersHelper helper, boolean routeMetrics) {
         this.typesPackage = typesPackage;
         this.apiPackage = apiPackage;
         this.naming = naming;
         this.helper = helper;
+        this.routeMetrics = routeMetrics;
         this.processorResponse = new ProcessorResponse(this.typesPackage, this.naming);
     }
 
@@ -64,17 +80,51 @@ public class ProcessorClass {
                 .addField(ClassName.get(String.class), "apiPath", Modifier.PRIVATE, Modifier.FINAL)
                 .addField(ClassName.get(JsonFactory.class), "factory", Modifier.PRIVATE, Modifier.FINAL)
                 .addField(this.handlersClassName(ramlModel), "handlers", Modifier.PRIVATE, Modifier.FINAL)
-
-
-                .addMethod(MethodSpec.constructorBuilder()
+                .addField(this.routesTypeName(), "routes", Modifier.PRIVATE, Modifier.FINAL)
+                .addField(FieldSpec.builder(PhaseListener.class, "phaseListener", Modifier.PRIVATE, Modifier.VOLATILE)
+                        .initializer("$T.NONE", PhaseListener.class)
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("phaseListener")
                         .addModifiers(Modifier.PUBLIC)
-                        .addParameter(ClassName.get(String.class), "apiPath")
-                        .addParameter(ClassName.get(JsonFactory.class), "factory")
-                        .addParameter(this.handlersClassName(ramlModel), "handlers")
-                        .addStatement("this.$L = $L", "apiPath", "apiPath")
-                        .addStatement("this.$L = $L", "factory", "factory")
-                        .addStatement("this.$L = $L", "handlers", "handlers")
+                        .addParameter(PhaseListener.class, "phaseListener")
+                        .returns(this.processorClassName(ramlModel))
+                        .addStatement("this.phaseListener = phaseListener")
+                        .addStatement("return this")
                         .build());
+
+        MethodSpec.Builder constructor = MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(ClassName.get(String.class), "apiPath")
+                .addParameter(ClassName.get(JsonFactory.class), "factory")
+                .addParameter(this.handlersClassName(ramlModel), "handlers");
+        if(this.routeMetrics) {
+            processorBuilder
+                    .addField(ClassName.get(RouteMetrics.class), "metrics", Modifier.PRIVATE, Modifier.FINAL)
+                    .addMethod(MethodSpec.constructorBuilder()
+                            .addModifiers(Modifier.PUBLIC)
+                            .addParameter(ClassName.get(String.class), "apiPath")
+                            .addParameter(ClassName.get(JsonFactory.class), "factory")
+                            .addParameter(this.handlersClassName(ramlModel), "handlers")
+                            .addStatement("this(apiPath, factory, handlers, new $T())", RouteMetrics.class)
+                            .build())
+                    .addMethod(MethodSpec.methodBuilder("metrics")
+                            .addModifiers(Modifier.PUBLIC)
+                            .returns(ClassName.get(RouteMetrics.class))
+                            .addStatement("return this.metrics")
+                            .build());
+            constructor.addParameter(ClassName.get(RouteMetrics.class), "metrics");
+        }
+        constructor
+                .addStatement("this.$L = $L", "apiPath", "apiPath")
+                .addStatement("this.$L = $L", "factory", "factory")
+                .addStatement("this.$L = $L", "handlers", "handlers");
+        if(this.routeMetrics) {
+            constructor.addStatement("this.$L = $L", "metrics", "metrics");
+        }
+        processorBuilder.addMethod(constructor
+                .addCode(this.routesInitialization(ramlModel))
+                .build());
+
         if(this.processorResponse.needsSubstitutedMethod()) {
             processorBuilder.addMethod(this.buildSubstitutedMethod());
         }
@@ -90,6 +140,10 @@ public class ProcessorClass {
         return ClassName.bestGuess(this.naming.type(ramlModel.getApiV10().title().value(), "Processor"));
     }
 
+    private TypeName routesTypeName() {
+        return ParameterizedTypeName.get(ClassName.get(RouteTrie.class), ClassName.get(RouteProcessor.class));
+    }
+
     private MethodSpec buildProcessMethod(RamlModelResult ramlModel) {
         MethodSpec.Builder method = MethodSpec.methodBuilder("process")
                 .addModifiers(Modifier.PUBLIC)
@@ -98,51 +152,74 @@ public class ProcessorClass {
                 .addParameter(ClassName.get(ResponseDelegate.class), "responseDelegate")
                 .addException(ClassName.get(IOException.class));
 
-        this.addResourcesProcessing( method, ramlModel.getApiV10().resources());
+        method.addStatement(
+                "$T.Match<$T> match = this.routes.match(requestDelegate.method(), requestDelegate.path())",
+                RouteTrie.class, RouteProcessor.class
+        );
+        method.beginControlFlow("if(match != null)")
+                .addStatement("match.target().process(requestDelegate, responseDelegate, match.uriParameters())")
+                .endControlFlow();
 
         return method.build();
     }
 
-    private void addResourcesProcessing(MethodSpec.Builder method, List<Resource> resources) {
+    private CodeBlock routesInitialization(RamlModelResult ramlModel) {
+        CodeBlock.Builder code = CodeBlock.builder()
+                .add("this.routes = $T.<$T>builder()\n", RouteTrie.class, RouteProcessor.class)
+                .indent().indent();
+        this.addResourcesRoutes(code, ramlModel.getApiV10().resources());
+        return code
+                .add(".build();\n")
+                .unindent().unindent()
+                .build();
+    }
+
+    private void addResourcesRoutes(CodeBlock.Builder code, List<Resource> resources) {
         for (Resource resource : resources) {
-            this.addResourceProcessing(method, resource);
-            this.addResourcesProcessing(method, resource.resources());
+            this.addResourceRoutes(code, resource);
+            this.addResourcesRoutes(code, resource.resources());
         }
     }
 
-    private void addResourceProcessing(MethodSpec.Builder method, Resource resource) {
+    private void addResourceRoutes(CodeBlock.Builder code, Resource resource) {
         if(resource.methods().isEmpty()) return;
 
-        String resourcePath = resource.resourcePath();
-        resourcePath = resourcePath.replaceAll("//", "/");
-        while(resourcePath.endsWith("/")) {
-            resourcePath = resourcePath.substring(0, resourcePath.length() - 1);
-        }
+        String resourcePath = this.resourcePath(resource);
 
-        if(! Resolver.resolvedUriParameters(resource).isEmpty()) {
-            String pathRegex = resourcePath.replaceAll("\\{[^\\}]*}", "[^/]+");
-            method.beginControlFlow("if(requestDelegate.pathMatcher(this.apiPath + \"$L/?\").matches())", pathRegex);
-        } else {
-            method.beginControlFlow(
-                    "if(requestDelegate.pathMatcher(this.apiPath + \"$L/?\").matches())",
-                    resourcePath
-            );
-        }
         for (Method resourceMethod : resource.methods()) {
-            method.beginControlFlow(
-                    "if(requestDelegate.method().equals(RequestDelegate.Method.$L))",
-                    resourceMethod.method().toUpperCase()
-            );
-            method.addStatement("this.$L(requestDelegate, responseDelegate)", this.methodProcessingMethodName(resourceMethod));
-            method.addStatement("return");
-            method.endControlFlow();
+            if(this.routeMetrics) {
+                code.add(".route(apiPath + $S, $T.Method.$L, this.metrics.instrument($S, this::$L))\n",
+                        resourcePath,
+                        RequestDelegate.class,
+                        resourceMethod.method().toUpperCase(),
+                        this.routeName(resourceMethod),
+                        this.methodProcessingMethodName(resourceMethod)
+                );
+            } else {
+                code.add(".route(apiPath + $S, $T.Method.$L, this::$L)\n",
+                        resourcePath,
+                        RequestDelegate.class,
+                        resourceMethod.method().toUpperCase(),
+                        this.methodProcessingMethodName(resourceMethod)
+                );
+            }
         }
+    }
 
-        method.endControlFlow();
 
-    }
 
+    private String resourcePath(Resource resource) {
+        String resourcePath = resource.resourcePath();
+        resourcePath = resourcePath.replaceAll("//", "/");
+        while(resourcePath.endsWith("/")) {
+            resourcePath = resourcePath.substring(0, resourcePath.length() - 1);
+        }
+        return resourcePath;
+    }
 
+    private String routeName(Method resourceMethod) {
+        return resourceMethod.method().toUpperCase() + " " + this.resourcePath(resourceMethod.resource());
+    }
 
     private Iterable<MethodSpec> buildMethodProcessingMethods(RamlModelResult ramlModel) {
         LinkedList<MethodSpec> methodSpecs = new LinkedList<>();
@@ -165,6 +242,7 @@ public class ProcessorClass {
                 .returns(TypeName.VOID)
                 .addParameter(ClassName.get(RequestDelegate.class), "requestDelegate")
                 .addParameter(ClassName.get(ResponseDelegate.class), "responseDelegate")
+                .addParameter(ParameterizedTypeName.get(ClassName.get(Map.class), ClassName.get(String.class), ParameterizedTypeName.get(List.class, String.class)), "uriParameters")
                 .addException(IOException.class);
 
         this.addMethodProcessingMethodBody(resourceMethod, method);
@@ -173,12 +251,15 @@ public class ProcessorClass {
     }
 
     private void addMethodProcessingMethodBody(Method resourceMethod, MethodSpec.Builder method) {
+        method.addStatement("$T phases = this.phaseListener.start($S)", PhaseTimer.class, this.routeName(resourceMethod));
+        method.beginControlFlow("try");
         method.addStatement("$T.Builder requestBuilder = $T.builder()",
                 this.resourceMethodRequestClass(resourceMethod),
                 this.resourceMethodRequestClass(resourceMethod)
         );
         if(! resourceMethod.body().isEmpty()) {
             this.addRequestPayloadProcessing(resourceMethod, method);
+            method.addStatement("phases.lap($T.Phase.BODY_PARSING)", PhaseTimer.class);
         }
         if(! resourceMethod.queryParameters().isEmpty()) {
             this.addRequestQueryParametersProcessing(resourceMethod, method);
@@ -189,15 +270,21 @@ public class ProcessorClass {
         if(! resourceMethod.headers().isEmpty()) {
             this.addRequestHeadersProcessing(resourceMethod, method);
         }
+        method.addStatement("phases.lap($T.Phase.PARAMETERS)", PhaseTimer.class);
         method
                 .addStatement(
                         "$T response = this.handlers.$L().apply(requestBuilder.build())",
                         this.resourceMethodResponseClass(resourceMethod),
                         this.resourceMethodHandlerMethod(resourceMethod)
                 );
+        method.addStatement("phases.lap($T.Phase.HANDLER)", PhaseTimer.class);
 
         this.addResponseProcessingStatements(resourceMethod, method);
+        method.addStatement("phases.lap($T.Phase.RESPONSE_WRITING)", PhaseTimer.class);
 
+        method.nextControlFlow("finally");
+        method.addStatement("phases.done()");
+        method.endControlFlow();
     }
 
     private void addRequestPayloadProcessing(Method resourceMethod, MethodSpec.Builder method) {
@@ -209,8 +296,9 @@ public class ProcessorClass {
             return ;
         }
 
-        method.beginControlFlow("try($T payload = requestDelegate.payload())", InputStream.class);
-        mediaType.processorBodyReaderStatement(resourceMethod, this.typesPackage, this.naming).append(method);
+        ProcessorRequestBodyReaderStatement bodyReader = mediaType.processorBodyReaderStatement(resourceMethod, this.typesPackage, this.naming);
+        method.beginControlFlow("try($T payload = phases.timed(requestDelegate.$L()))", InputStream.class, bodyReader.payloadAccessor());
+        bodyReader.append(method);
         method.endControlFlow();
     }
 
@@ -229,10 +317,6 @@ public class ProcessorClass {
     }
 
     private void addRequestUriParametersProcessing(Method resourceMethod, MethodSpec.Builder method) {
-        method.addStatement(
-                "$T<$T, $T<$T>> uriParameters = requestDelegate.uriParameters(this.apiPath + \"$L/?\")",
-                Map.class, String.class, List.class, String.class, resourceMethod.resource().resourcePath().replaceAll("//", "/")
-            );
         for (TypeDeclaration typeDeclaration : Resolver.resolvedUriParameters(resourceMethod.resource())) {
             ProcessorParameter param = new ProcessorParameter(this.naming, typeDeclaration);
             param.addStatement(method, Parameter.ParameterSource.URI);
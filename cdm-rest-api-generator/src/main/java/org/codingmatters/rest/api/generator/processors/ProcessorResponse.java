@@ -6,10 +6,14 @@ import org.codingmatters.value.objects.generation.Naming;
 import org.raml.v2.api.model.v10.bodies.Response;
 import org.raml.v2.api.model.v10.datamodel.ArrayTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+import org.raml.v2.api.model.v10.declarations.AnnotationRef;
 import org.raml.v2.api.model.v10.methods.Method;
+import org.raml.v2.api.model.v10.resources.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 public class ProcessorResponse {
     static private final Logger log = LoggerFactory.getLogger(ProcessorResponse.class);
 
@@ -32,6 +36,8 @@ public class ProcessorResponse {
         //TODO handle response content type
         //method.addStatement("responseDelegate.contenType($S)", "application/json; charset=utf-8");
 
+        boolean conditional = this.isConditionalGet(resourceMethod);
+
         method.beginControlFlow("if(response != null)");
         if(! resourceMethod.responses().isEmpty()) {
             for (int i = 0; i < resourceMethod.responses().size(); i++) {
@@ -47,7 +53,7 @@ public class ProcessorResponse {
                     this.addResponseHeadersProcessingStatements(response, method);
                 }
                 if (!response.body().isEmpty()) {
-                    this.addResponsePayloadProcessingStatements(response, method);
+                    this.addResponsePayloadProcessingStatements(response, method, conditional && response.code().value().equals("200"));
                 }
             }
             method.endControlFlow();
@@ -88,11 +94,48 @@ public class ProcessorResponse {
         }
     }
 
-    private void addResponsePayloadProcessingStatements(Response response, MethodSpec.Builder method) {
+    /**
+     * Conditional GET is opted in with the (conditional-get) annotation on the method or on one of its resources.
+     */
+    private boolean isConditionalGet(Method resourceMethod) {
+        boolean annotated = this.hasConditionalGetAnnotation(resourceMethod.annotations());
+        for(Resource resource = resourceMethod.resource() ; resource != null && ! annotated ; resource = resource.parentResource()) {
+            annotated = this.hasConditionalGetAnnotation(resource.annotations());
+        }
+        if(annotated && ! resourceMethod.method().equalsIgnoreCase("get")) {
+            log.warn("(conditional-get) only applies to GET methods, ignored on {}", resourceMethod.method());
+            return false;
+        }
+        return annotated;
+    }
+
+    private boolean hasConditionalGetAnnotation(List<AnnotationRef> annotations) {
+        for (AnnotationRef annotation : annotations) {
+            if(annotation.name().equalsIgnoreCase("(conditional-get)")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String lastModifiedProperty(Response response) {
+        for (TypeDeclaration typeDeclaration : response.headers()) {
+            if(typeDeclaration.name().equalsIgnoreCase("Last-Modified") && typeDeclaration.type().equalsIgnoreCase("string")) {
+                return this.naming.property(typeDeclaration.name());
+            }
+        }
+        return null;
+    }
+
+    private void addResponsePayloadProcessingStatements(Response response, MethodSpec.Builder method, boolean conditional) {
         try {
             ProcessorResponseBodyWriterStatement statement = ProcessorResponseBodyWriterStatement.from(response, this.typesPackage, this.naming);
             statement.appendContentType(method);
-            statement.appendTo(method);
+            if(conditional) {
+                statement.appendConditionalTo(method, this.lastModifiedProperty(response));
+            } else {
+                statement.appendTo(method);
+            }
         } catch (UnsupportedMediaTypeException e) {
             log.error("error while processing response", e);
         }
@@ -11,6 +11,16 @@ public interface ProcessorResponseBodyWriterStatement {
     MethodSpec.Builder appendTo(MethodSpec.Builder method);
     MethodSpec.Builder appendContentType(MethodSpec.Builder method);
 
+    /**
+     * Appends payload writing statements answering conditional requests (ETag, Last-Modified) with a 304.
+     * Media types without conditional support write the payload unconditionally.
+     *
+     * @param lastModifiedProperty the response's Last-Modified header property, null when not declared
+     */
+    default MethodSpec.Builder appendConditionalTo(MethodSpec.Builder method, String lastModifiedProperty) {
+        return this.appendTo(method);
+    }
+
     static ProcessorResponseBodyWriterStatement from(Response response, String typesPackage, Naming naming) throws UnsupportedMediaTypeException {
         return SupportedMediaType.from(response).processorResponseBodyWriterStatement(response, typesPackage, naming);
     }
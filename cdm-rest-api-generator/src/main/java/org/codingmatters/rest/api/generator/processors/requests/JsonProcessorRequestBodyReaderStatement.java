@@ -21,6 +21,11 @@ public class JsonProcessorRequestBodyReaderStatement implements ProcessorRequest
         this.naming = naming;
     }
 
+    @Override
+    public String payloadAccessor() {
+        return "payloadStream";
+    }
+
     @Override
     public void append(MethodSpec.Builder caller) {
         TypeDeclaration body = this.method.body().get(0);
@@ -4,4 +4,11 @@ import com.squareup.javapoet.MethodSpec;
 
 public interface ProcessorRequestBodyReaderStatement {
     void append(MethodSpec.Builder caller);
+
+    /**
+     * @return the RequestDelegate method the payload stream is obtained from.
+     */
+    default String payloadAccessor() {
+        return "payload";
+    }
 }
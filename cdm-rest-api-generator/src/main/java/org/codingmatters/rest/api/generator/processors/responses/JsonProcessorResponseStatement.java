@@ -3,6 +3,7 @@ package org.codingmatters.rest.api.generator.processors.responses;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.MethodSpec;
+import org.codingmatters.rest.api.ConditionalResponse;
 import org.codingmatters.rest.api.generator.processors.ProcessorResponseBodyWriterStatement;
 import org.codingmatters.rest.api.generator.utils.DeclaredTypeRegistry;
 import org.codingmatters.value.objects.generation.Naming;
@@ -14,7 +15,7 @@ import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 
 public class JsonProcessorResponseStatement implements ProcessorResponseBodyWriterStatement {
     static private final Logger log = LoggerFactory.getLogger(JsonProcessorResponseStatement.class);
@@ -40,19 +41,44 @@ public class JsonProcessorResponseStatement implements ProcessorResponseBodyWrit
     @Override
     public MethodSpec.Builder appendTo(MethodSpec.Builder method) {
         method.beginControlFlow("if(response.status$L().payload() != null)", response.code().value());
-        method.beginControlFlow("try($T out = new $T())", ByteArrayOutputStream.class, ByteArrayOutputStream.class);
+        method.addStatement("$T out = responseDelegate.payloadStream()", OutputStream.class);
 
         this.applicationJsonResponsePayload(response, method, body);
 
-        method.addStatement("responseDelegate.payload(out.toString(), $S)", "utf-8");
         method.endControlFlow();
+
+        return method;
+    }
+
+    @Override
+    public MethodSpec.Builder appendConditionalTo(MethodSpec.Builder method, String lastModifiedProperty) {
+        method.beginControlFlow("if(response.status$L().payload() != null)", response.code().value());
+        if(lastModifiedProperty != null) {
+            method.addStatement(
+                    "$T out = $T.of(requestDelegate, responseDelegate).lastModified(response.status$L().$L()).payloadStream()",
+                    OutputStream.class, ConditionalResponse.class, response.code().value(), lastModifiedProperty
+            );
+        } else {
+            method.addStatement(
+                    "$T out = $T.of(requestDelegate, responseDelegate).payloadStream()",
+                    OutputStream.class, ConditionalResponse.class
+            );
+        }
+
+        this.applicationJsonResponsePayload(response, method, body);
+
         method.endControlFlow();
 
         return method;
     }
 
+    /**
+     * The generator and the stream are only closed once the payload is fully written : when a writer fails, closing
+     * them would complete a truncated payload, hence the exception is left to abort the response. Open arrays and
+     * objects are not auto closed either.
+     */
     private void applicationJsonResponsePayload(Response response, MethodSpec.Builder method, TypeDeclaration body) {
-        method.beginControlFlow("try($T generator = this.factory.createGenerator(out))", JsonGenerator.class);
+        method.addStatement("$T generator = this.factory.createGenerator(out).disable($T.Feature.AUTO_CLOSE_JSON_CONTENT)", JsonGenerator.class, JsonGenerator.class);
 
         if(body instanceof ArrayTypeDeclaration || body.type().endsWith("[]")) {
             // TODO replace with list writer
@@ -104,7 +130,8 @@ public class JsonProcessorResponseStatement implements ProcessorResponseBodyWrit
                     response.code().value()
             );
         }
-        method.endControlFlow();
+        method.addStatement("generator.close()");
+        method.addStatement("out.close()");
     }
 
     private ClassName elementClassName(String elementType) {
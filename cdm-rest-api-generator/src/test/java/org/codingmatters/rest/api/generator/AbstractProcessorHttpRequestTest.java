@@ -40,6 +40,10 @@ public abstract class AbstractProcessorHttpRequestTest {
     }
 
     protected void setupProcessorWithHandler(String handlerMethod, Function handler) throws Exception {
+        this.setupProcessorWithHandler(handlerMethod, handler, new JsonFactory());
+    }
+
+    protected void setupProcessorWithHandler(String handlerMethod, Function handler, JsonFactory factory) throws Exception {
         ObjectHelper handlers = this.classes.get("org.generated.api.TestAPIHandlers$Builder")
                 .newInstance()
                 .call(handlerMethod, Function.class).with(handler)
@@ -47,7 +51,7 @@ public abstract class AbstractProcessorHttpRequestTest {
 
         this.testProcessor = (Processor) this.classes.get("org.generated.server.TestAPIProcessor")
                 .newInstance(String.class, JsonFactory.class, this.classes.get("org.generated.api.TestAPIHandlers").get())
-                .with("/api", new JsonFactory(), handlers.get())
+                .with("/api", factory, handlers.get())
                 .get();
     }
 
@@ -0,0 +1,111 @@
+package org.codingmatters.rest.api.generator.processor;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import org.codingmatters.rest.api.generator.AbstractProcessorHttpRequestTest;
+import org.codingmatters.tests.compile.helpers.helpers.ObjectHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class ProcessorConditionalGetTest extends AbstractProcessorHttpRequestTest {
+
+    static private final String LAST_MODIFIED = "Tue, 15 Nov 1994 12:45:26 GMT";
+
+    @Before
+    public void setUp() throws Exception {
+        ProcessorGeneratorTestHelper helper = new ProcessorGeneratorTestHelper(this.dir, this.fileHelper)
+                .setUpWithResource("processor/processor-conditional-get.raml");
+        this.compiled = helper.compiled();
+        this.classes = this.compiled.classLoader();
+    }
+
+    @Test
+    public void givenConditionalGet__whenNoConditionalHeader__thenPayloadIsWrittenWithWeakETag() throws Exception {
+        this.setupProcessorWithHandler("taggedGetHandler", req -> this.response("Tagged", "val", null));
+
+        try(Response response = this.client.newCall(this.request("/api/tagged").build()).execute()) {
+            assertThat(response.code(), is(200));
+            assertThat(response.header("ETag"), startsWith("W/\""));
+            assertThat(response.header("ETag"), endsWith("\""));
+            assertThat(response.body().string(), is("{\"prop\":\"val\"}"));
+        }
+    }
+
+    @Test
+    public void givenConditionalGet__whenIfNoneMatchesCurrentETag__then304WithoutPayload() throws Exception {
+        this.setupProcessorWithHandler("taggedGetHandler", req -> this.response("Tagged", "val", null));
+
+        String etag;
+        try(Response response = this.client.newCall(this.request("/api/tagged").build()).execute()) {
+            etag = response.header("ETag");
+        }
+
+        try(Response response = this.client.newCall(this.request("/api/tagged").header("If-None-Match", etag).build()).execute()) {
+            assertThat(response.code(), is(304));
+            assertThat(response.header("ETag"), is(etag));
+            assertThat(response.body().string(), is(""));
+        }
+    }
+
+    @Test
+    public void givenConditionalGet__whenIfNoneMatchesStaleETag__thenPayloadIsWritten() throws Exception {
+        this.setupProcessorWithHandler("taggedGetHandler", req -> this.response("Tagged", "changed", null));
+
+        try(Response response = this.client.newCall(this.request("/api/tagged").header("If-None-Match", "\"stale\"").build()).execute()) {
+            assertThat(response.code(), is(200));
+            assertThat(response.body().string(), is("{\"prop\":\"changed\"}"));
+        }
+    }
+
+    @Test
+    public void givenHandlerSuppliesLastModified__whenIfModifiedSinceIsNotBefore__then304() throws Exception {
+        this.setupProcessorWithHandler("taggedGetHandler", req -> this.response("Tagged", "val", LAST_MODIFIED));
+
+        try(Response response = this.client.newCall(this.request("/api/tagged").header("If-Modified-Since", LAST_MODIFIED).build()).execute()) {
+            assertThat(response.code(), is(304));
+            assertThat(response.header("Last-Modified"), is(LAST_MODIFIED));
+        }
+        try(Response response = this.client.newCall(this.request("/api/tagged").header("If-Modified-Since", "Mon, 14 Nov 1994 12:45:26 GMT").build()).execute()) {
+            assertThat(response.code(), is(200));
+            assertThat(response.body().string(), is("{\"prop\":\"val\"}"));
+        }
+    }
+
+    @Test
+    public void givenNotAnnotated__whenIfNoneMatchIsWildcard__thenPayloadIsWrittenWithoutETag() throws Exception {
+        this.setupProcessorWithHandler("untaggedGetHandler", req -> this.response("Untagged", "val", null));
+
+        try(Response response = this.client.newCall(this.request("/api/untagged").header("If-None-Match", "*").build()).execute()) {
+            assertThat(response.code(), is(200));
+            assertThat(response.header("ETag"), is(nullValue()));
+            assertThat(response.body().string(), is("{\"prop\":\"val\"}"));
+        }
+    }
+
+    private Request.Builder request(String path) {
+        return new Request.Builder().url(this.undertow.baseUrl() + path).get();
+    }
+
+    private Object response(String resource, String prop, String lastModified) {
+        try {
+            ObjectHelper payload = this.classes.get("org.generated.types.Resp$Builder").newInstance()
+                    .call("prop", String.class).with(prop)
+                    .call("build");
+            ObjectHelper status200Builder = this.classes.get("org.generated.api." + resource.toLowerCase() + "getresponse.Status200$Builder").newInstance()
+                    .call("payload", this.classes.get("org.generated.types.Resp").get()).with(payload.get());
+            if(lastModified != null) {
+                status200Builder = status200Builder.call("lastModified", String.class).with(lastModified);
+            }
+            ObjectHelper status200 = status200Builder.call("build");
+            return this.classes.get("org.generated.api." + resource + "GetResponse$Builder").newInstance()
+                    .call("status200", this.classes.get("org.generated.api." + resource.toLowerCase() + "getresponse.Status200").get()).with(status200.get())
+                    .call("build")
+                    .get();
+        } catch (Exception e) {
+            throw new RuntimeException("failed building response", e);
+        }
+    }
+}
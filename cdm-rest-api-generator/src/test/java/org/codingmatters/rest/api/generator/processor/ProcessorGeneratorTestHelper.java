@@ -33,6 +33,7 @@ public class ProcessorGeneratorTestHelper {
     public final FileHelper fileHelper;
     private CompiledCode compiled;
     private boolean printFileTree = false;
+    private boolean routeMetrics = false;
 
     public ProcessorGeneratorTestHelper(TemporaryFolder dir, FileHelper fileHelper) {
         this.dir = dir;
@@ -44,6 +45,11 @@ public class ProcessorGeneratorTestHelper {
         return this;
     }
 
+    public ProcessorGeneratorTestHelper routeMetrics(boolean routeMetrics) {
+        this.routeMetrics = routeMetrics;
+        return this;
+    }
+
     public ProcessorGeneratorTestHelper setUpWithResource(String ramlRessource) throws Exception {
         Spec anAlreadyDefinedValueObject = new Spec.Builder()
                 .addValue(ValueSpec.valueSpec()
@@ -63,7 +69,7 @@ public class ProcessorGeneratorTestHelper {
         new SpecCodeGenerator(apiSpec, ProcessorGeneratorTestHelper.API_PACK, this.dir.getRoot()).generate();
         new HandlersGenerator(ProcessorGeneratorTestHelper.API_PACK, ProcessorGeneratorTestHelper.TYPES_PACK, ProcessorGeneratorTestHelper.API_PACK, this.dir.getRoot()).generate(raml);
 
-        new ProcessorGenerator(ProcessorGeneratorTestHelper.SERVER_PACK, ProcessorGeneratorTestHelper.TYPES_PACK, ProcessorGeneratorTestHelper.API_PACK, this.dir.getRoot()).generate(raml);
+        new ProcessorGenerator(ProcessorGeneratorTestHelper.SERVER_PACK, ProcessorGeneratorTestHelper.TYPES_PACK, ProcessorGeneratorTestHelper.API_PACK, this.dir.getRoot(), this.routeMetrics).generate(raml);
 
         if(this.printFileTree) {
             this.printTree(this.dir.getRoot(), "");
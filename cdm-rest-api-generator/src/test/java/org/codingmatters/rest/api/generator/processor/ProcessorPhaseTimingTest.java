@@ -0,0 +1,80 @@
+package org.codingmatters.rest.api.generator.processor;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.codingmatters.rest.api.generator.AbstractProcessorHttpRequestTest;
+import org.codingmatters.rest.api.metrics.PhaseListener;
+import org.codingmatters.rest.api.metrics.PhaseTimer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class ProcessorPhaseTimingTest extends AbstractProcessorHttpRequestTest {
+
+    @Before
+    public void setUp() throws Exception {
+        ProcessorGeneratorTestHelper helper = new ProcessorGeneratorTestHelper(this.dir, this.fileHelper)
+                .setUpWithResource("processor/processor-request.raml");
+        this.compiled = helper.compiled();
+        this.classes = this.compiled.classLoader();
+    }
+
+    @Test
+    public void givenPhaseListener__whenRequestProcessed__thenListenerNotifiedWithRouteAndPhaseBreakdown() throws Exception {
+        this.setupProcessorWithHandler(
+                "payloadPostHandler",
+                req -> {
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                });
+        AtomicReference<PhaseTimer> completed = new AtomicReference<>();
+        this.withPhaseListener(completed::set);
+
+        Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl() + "/api/payload/")
+                .post(RequestBody.create(MediaType.parse("application/json; charset=utf_8"), "{\"prop\":\"val\"}"))
+                .build()).execute();
+        assertThat(response.code(), is(200));
+
+        PhaseTimer timer = completed.get();
+        assertThat(timer, is(notNullValue()));
+        assertThat(timer.route(), is("POST /payload"));
+        assertThat(timer.duration(PhaseTimer.Phase.HANDLER), is(greaterThanOrEqualTo(20_000_000L)));
+        assertThat(timer.total(), is(greaterThanOrEqualTo(timer.duration(PhaseTimer.Phase.HANDLER))));
+
+        long phases = 0;
+        for (PhaseTimer.Phase phase : PhaseTimer.Phase.values()) {
+            assertThat(timer.duration(phase), is(greaterThanOrEqualTo(0L)));
+            phases += timer.duration(phase);
+        }
+        assertThat(phases, is(lessThanOrEqualTo(timer.total())));
+    }
+
+    @Test
+    public void givenPhaseListener__whenRequestBodyIsMalformed__thenListenerIsStillNotified() throws Exception {
+        this.setupProcessorWithHandler("payloadPostHandler", req -> null);
+        AtomicReference<PhaseTimer> completed = new AtomicReference<>();
+        this.withPhaseListener(completed::set);
+
+        Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl() + "/api/payload/")
+                .post(RequestBody.create(MediaType.parse("application/json; charset=utf_8"), "{\"prop\":"))
+                .build()).execute();
+        assertThat(response.code(), is(400));
+
+        assertThat(completed.get(), is(notNullValue()));
+        assertThat(completed.get().route(), is("POST /payload"));
+    }
+
+    private void withPhaseListener(PhaseListener listener) throws Exception {
+        this.testProcessor.getClass().getMethod("phaseListener", PhaseListener.class).invoke(this.testProcessor, listener);
+    }
+}
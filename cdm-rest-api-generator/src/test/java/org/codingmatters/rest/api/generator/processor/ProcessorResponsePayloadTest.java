@@ -1,5 +1,7 @@
 package org.codingmatters.rest.api.generator.processor;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import okhttp3.Request;
 import okhttp3.Response;
 import org.codingmatters.rest.api.generator.AbstractProcessorHttpRequestTest;
@@ -9,10 +11,14 @@ import org.codingmatters.value.objects.values.ObjectValue;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Array;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 /**
  * Created by nelt on 6/1/17.
@@ -106,8 +112,45 @@ public class ProcessorResponsePayloadTest extends AbstractProcessorHttpRequestTe
     }
 
 
+    @Test
+    public void givenPayloadWriterFailsAfterResponseStarted__whenRequesting__thenResponseIsNotCompleted() throws Exception {
+        JsonFactory failingFactory = new JsonFactory() {
+            @Override
+            public JsonGenerator createGenerator(OutputStream out) throws IOException {
+                return super.createGenerator(new FilterOutputStream(out) {
+                    private long written = 0;
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        this.written += len;
+                        if(this.written > 64 * 1024) {
+                            throw new IOException("writer failure");
+                        }
+                        this.out.write(b, off, len);
+                    }
+                });
+            }
+        };
+        this.setupProcessorWithHandler(
+                "payloadListGetHandler",
+                req -> this.createFilledPayloadListGetResponse(10000),
+                failingFactory
+        );
+
+        try(Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl() + "/api/payload-list")
+                .get()
+                .build()).execute()) {
+            String body = response.body().string();
+            fail("truncated payload completed with status " + response.code() + " and " + body.length() + " chars");
+        } catch (IOException e) {
+        }
+    }
 
     private Object createFilledPayloadListGetResponse() {
+        return this.createFilledPayloadListGetResponse(1);
+    }
+
+    private Object createFilledPayloadListGetResponse(int count) {
         Object response = null;
         try {
             Object payloadBuilder = this.compiled.getClass("org.generated.types.Resp$Builder").newInstance();
@@ -115,8 +158,10 @@ public class ProcessorResponsePayloadTest extends AbstractProcessorHttpRequestTe
             Object payload = this.compiled.on(payloadBuilder).invoke("build");
 
             Object status200Builder = this.compiled.getClass("org.generated.api.payloadlistgetresponse.Status200$Builder").newInstance();
-            Object respArray = Array.newInstance(this.compiled.getClass("org.generated.types.Resp"), 1);
-            Array.set(respArray, 0, payload);
+            Object respArray = Array.newInstance(this.compiled.getClass("org.generated.types.Resp"), count);
+            for (int i = 0; i < count; i++) {
+                Array.set(respArray, i, payload);
+            }
             this.compiled.on(status200Builder).invoke("payload", respArray.getClass()).with(respArray);
             Object status200 = this.compiled.on(status200Builder).invoke("build");
 
@@ -0,0 +1,76 @@
+package org.codingmatters.rest.api.generator.processor;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import org.codingmatters.rest.api.generator.AbstractProcessorHttpRequestTest;
+import org.codingmatters.rest.api.metrics.RouteMetrics;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class ProcessorRouteMetricsTest extends AbstractProcessorHttpRequestTest {
+
+    @Before
+    public void setUp() throws Exception {
+        ProcessorGeneratorTestHelper helper = new ProcessorGeneratorTestHelper(this.dir, this.fileHelper)
+                .routeMetrics(true)
+                .setUpWithResource("processor/processor-response.raml");
+        this.compiled = helper.compiled();
+        this.classes = this.compiled.classLoader();
+    }
+
+    @Test
+    public void givenRouteMetrics__whenRequestProcessed__thenLatencyAndStatusAreRecordedForTheRoute() throws Exception {
+        this.setupProcessorWithHandler(
+                "statusGetHandler",
+                req -> this.create200StatusGetResponse(201)
+        );
+
+        Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl() + "/api/status")
+                .get()
+                .build()).execute();
+        assertThat(response.code(), is(201));
+
+        RouteMetrics metrics = this.metrics();
+        assertThat(metrics.routes().keySet(), hasItem("GET /status"));
+        assertThat(metrics.route("GET /status").latency().count(), is(1L));
+        assertThat(metrics.route("GET /status").statuses().get(201), is(1L));
+    }
+
+    @Test
+    public void givenRouteMetrics__whenWritingPrometheusText__thenRouteCountersAreExposed() throws Exception {
+        this.setupProcessorWithHandler(
+                "statusGetHandler",
+                req -> this.create200StatusGetResponse(200)
+        );
+
+        this.client.newCall(new Request.Builder().url(this.undertow.baseUrl() + "/api/status")
+                .get()
+                .build()).execute();
+
+        StringBuilder text = new StringBuilder();
+        this.metrics().writePrometheus(text);
+        assertThat(text.toString(), containsString("cdm_http_responses_total{route=\"GET /status\",status=\"200\"} 1\n"));
+        assertThat(text.toString(), containsString("cdm_http_request_duration_seconds_count{route=\"GET /status\"} 1\n"));
+    }
+
+    private RouteMetrics metrics() throws Exception {
+        return (RouteMetrics) this.testProcessor.getClass().getMethod("metrics").invoke(this.testProcessor);
+    }
+
+    private Object create200StatusGetResponse(int code) {
+        Object response = null;
+        try {
+            Object statusBuilder = this.compiled.getClass("org.generated.api.statusgetresponse.Status" + code + "$Builder").newInstance();
+            Object status = this.compiled.on(statusBuilder).invoke("build");
+            Object builder = this.compiled.getClass("org.generated.api.StatusGetResponse$Builder").newInstance();
+            this.compiled.on(builder).invoke("status" + code, this.compiled.getClass("org.generated.api.statusgetresponse.Status" + code)).with(status);
+            response = this.compiled.on(builder).invoke("build");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return response;
+    }
+}
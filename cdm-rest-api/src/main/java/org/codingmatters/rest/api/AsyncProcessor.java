@@ -0,0 +1,27 @@
+package org.codingmatters.rest.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Processor completing the response asynchronously : the request is processed once the returned stage completes.
+ *
+ * The response delegate must not be used after the returned stage completed.
+ */
+@FunctionalInterface
+public interface AsyncProcessor {
+    CompletionStage<Void> process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate);
+
+    static AsyncProcessor from(Processor processor) {
+        return (requestDelegate, responseDelegate) -> {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            try {
+                processor.process(requestDelegate, responseDelegate);
+                result.complete(null);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package org.codingmatters.rest.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Conditional GET support for generated processors.
+ *
+ * The payload written to {@link #payloadStream()} is digested as it is written, and a weak ETag is derived from
+ * its SHA-256 hash : the tag is computed over the identity payload and also sent when the response is compressed
+ * afterwards, hence may not claim byte for byte equality (RFC 7232, 2.3).
+ *
+ * On close, when the request's If-None-Match matches the ETag (or, without If-None-Match, when If-Modified-Since is
+ * not before the last modification date), the response is turned into a 304 without payload. Otherwise the ETag
+ * header is added and the payload is written.
+ */
+public class ConditionalResponse {
+
+    static public ConditionalResponse of(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) {
+        return new ConditionalResponse(requestDelegate, responseDelegate);
+    }
+
+    private final RequestDelegate requestDelegate;
+    private final ResponseDelegate responseDelegate;
+    private String lastModified;
+
+    private ConditionalResponse(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) {
+        this.requestDelegate = requestDelegate;
+        this.responseDelegate = responseDelegate;
+    }
+
+    /**
+     * @param lastModified the Last-Modified header value (RFC 1123 date), if any, as supplied by the handler.
+     */
+    public ConditionalResponse lastModified(String lastModified) {
+        this.lastModified = lastModified;
+        return this;
+    }
+
+    public DigestingOutputStream payloadStream() {
+        return new DigestingOutputStream();
+    }
+
+    private boolean notModified(String etag) {
+        List<String> ifNoneMatch = this.requestDelegate.headers().get("if-none-match");
+        if(ifNoneMatch != null && ! ifNoneMatch.isEmpty()) {
+            return matches(ifNoneMatch, etag);
+        }
+
+        List<String> ifModifiedSince = this.requestDelegate.headers().get("if-modified-since");
+        if(this.lastModified != null && ifModifiedSince != null && ! ifModifiedSince.isEmpty()) {
+            try {
+                ZonedDateTime modified = ZonedDateTime.parse(this.lastModified, DateTimeFormatter.RFC_1123_DATE_TIME);
+                ZonedDateTime since = ZonedDateTime.parse(ifModifiedSince.get(0), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return ! modified.toInstant().isAfter(since.toInstant());
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-None-Match uses the weak comparison function (RFC 7232, 3.2) : W/ prefixes are ignored.
+     */
+    static boolean matches(List<String> ifNoneMatch, String etag) {
+        if(etag.startsWith("W/")) {
+            etag = etag.substring(2);
+        }
+        for (String header : ifNoneMatch) {
+            for (String tag : header.split(",")) {
+                tag = tag.trim();
+                if(tag.equals("*")) return true;
+                if(tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if(tag.equals(etag)) return true;
+            }
+        }
+        return false;
+    }
+
+    public class DigestingOutputStream extends ByteArrayOutputStream {
+        private final MessageDigest digest;
+        private boolean closed = false;
+
+        private DigestingOutputStream() {
+            super(1024);
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is a mandatory algorithm", e);
+            }
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            super.write(b);
+            this.digest.update((byte) b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            super.write(b, off, len);
+            this.digest.update(b, off, len);
+        }
+
+        private String etag() {
+            return "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(this.digest.digest()) + "\"";
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(this.closed) return;
+            this.closed = true;
+
+            String etag = this.etag();
+            responseDelegate.addHeader("ETag", etag);
+            if(notModified(etag)) {
+                responseDelegate.status(304);
+            } else {
+                responseDelegate.payload(this.toByteArray());
+            }
+        }
+    }
+}
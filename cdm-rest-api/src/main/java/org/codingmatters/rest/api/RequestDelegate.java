@@ -1,12 +1,14 @@
 package org.codingmatters.rest.api;
 
-import org.codingmatters.rest.api.internal.HeaderMap;
+import org.codingmatters.rest.api.internal.CaseInsensitiveHeaderMap;
+import org.codingmatters.rest.api.internal.PatternCache;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Created by nelt on 4/27/17.
@@ -14,22 +16,54 @@ import java.util.regex.Matcher;
 public interface RequestDelegate extends AutoCloseable {
     String path();
     Matcher pathMatcher(String regex);
+    default Matcher pathMatcher(Pattern pattern) {
+        return pattern.matcher(this.path());
+    }
     Method method();
     InputStream payload() throws IOException;
+
+    /**
+     * Single pass stream over the payload, read as it is received rather than once fully buffered. Once consumed
+     * this way, the payload may not be available anymore. Defaults to {@link #payload()}.
+     */
+    default InputStream payloadStream() throws IOException {
+        return this.payload();
+    }
+
     String contentType();
 
     Map<String,List<String>> uriParameters(String pathExpression);
+
+    /**
+     * Case insensitive query parameters. Implementations may return read only value lists : to change values, put a
+     * new list.
+     */
     Map<String,List<String>> queryParameters();
+
+    /**
+     * Case insensitive headers. Implementations may return read only value lists : to change values, put a new list.
+     */
     Map<String,List<String>> headers();
 
     String absolutePath(String relative);
 
+    /**
+     * @return the address of the peer the request was received from, null when unknown.
+     */
+    default String clientAddress() {
+        return null;
+    }
+
     enum Method {
         GET, POST, PUT, PATCH, DELETE, HEAD, UNIMPLEMENTED;
     }
 
+    static Pattern compiledPattern(String regex) {
+        return PatternCache.compiled(regex);
+    }
+
     static Map<String,List<String>> createHeaderMap() {
-        return new HeaderMap();
+        return new CaseInsensitiveHeaderMap();
     }
     static Map<String, List<String>> createHeaderMap(Map<String, List<String>> from) {
         Map<String, List<String>> result = createHeaderMap();
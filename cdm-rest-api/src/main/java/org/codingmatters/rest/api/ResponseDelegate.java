@@ -1,6 +1,10 @@
 package org.codingmatters.rest.api;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Created by nelt on 4/27/17.
@@ -13,4 +17,29 @@ public interface ResponseDelegate extends AutoCloseable {
     ResponseDelegate payload(String payload, String charset);
     ResponseDelegate payload(byte[] bytes);
     ResponseDelegate payload(InputStream in);
+
+    default ResponseDelegate payload(ByteBuffer buffer) {
+        if(buffer == null) return this;
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return this.payload(bytes);
+    }
+
+    /**
+     * Streaming payload target, the payload is complete once the stream is closed. Delegates that can't write
+     * to the underlying response directly buffer the stream and hand the bytes to {@link #payload(byte[])} on close.
+     */
+    default OutputStream payloadStream() {
+        return new ByteArrayOutputStream() {
+            private boolean closed = false;
+
+            @Override
+            public void close() throws IOException {
+                if(! this.closed) {
+                    this.closed = true;
+                    ResponseDelegate.this.payload(this.toByteArray());
+                }
+            }
+        };
+    }
 }
@@ -0,0 +1,42 @@
+package org.codingmatters.rest.api.internal;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<K, V> values = new ConcurrentHashMap<>();
+
+    public BoundedCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public V get(K key, Function<K, V> compute) {
+        V result = this.values.get(key);
+        if(result == null) {
+            result = compute.apply(key);
+            if(this.maxSize > 0) {
+                this.evictIfFull();
+                V previous = this.values.putIfAbsent(key, result);
+                if(previous != null) {
+                    result = previous;
+                }
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return this.values.size();
+    }
+
+    private void evictIfFull() {
+        Iterator<K> keys = this.values.keySet().iterator();
+        while(this.values.size() >= this.maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
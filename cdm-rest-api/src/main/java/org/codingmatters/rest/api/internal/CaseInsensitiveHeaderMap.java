@@ -0,0 +1,295 @@
+package org.codingmatters.rest.api.internal;
+
+import java.util.*;
+
+/**
+ * Case insensitive map for header and parameter names.
+ *
+ * Names are compared ASCII case insensitively : hashes are computed on the folded characters and lookups don't
+ * allocate. As with {@link HeaderMap}, keys are stored in lower case, common header names being interned.
+ */
+public class CaseInsensitiveHeaderMap extends AbstractMap<String, List<String>> {
+
+    static private final String[] COMMON_NAMES = {
+            "accept", "accept-charset", "accept-encoding", "accept-language", "authorization", "cache-control",
+            "connection", "content-disposition", "content-encoding", "content-length", "content-type", "cookie",
+            "date", "etag", "expect", "host", "if-match", "if-modified-since", "if-none-match", "if-unmodified-since",
+            "keep-alive", "last-modified", "location", "origin", "pragma", "range", "referer", "retry-after",
+            "transfer-encoding", "upgrade", "user-agent", "vary", "x-forwarded-for", "x-forwarded-host",
+            "x-forwarded-proto", "x-request-id", "x-real-ip"
+    };
+    static private final String[] INTERNED = new String[128];
+
+    static {
+        for (String name : COMMON_NAMES) {
+            int index = hash(name) & (INTERNED.length - 1);
+            while(INTERNED[index] != null) {
+                index = (index + 1) & (INTERNED.length - 1);
+            }
+            INTERNED[index] = name;
+        }
+    }
+
+    static private final int INITIAL_CAPACITY = 16;
+
+    private Node[] table = new Node[INITIAL_CAPACITY];
+    private int size = 0;
+    private int modCount = 0;
+
+    private transient Set<Entry<String, List<String>>> entrySet;
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public List<String> get(Object key) {
+        Node node = this.node(key);
+        return node != null ? node.value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.node(key) != null;
+    }
+
+    @Override
+    public List<String> put(String key, List<String> value) {
+        int hash = hash(key);
+        Node node = this.node(key, hash);
+        if(node != null) {
+            List<String> previous = node.value;
+            node.value = value;
+            return previous;
+        }
+
+        int index = hash & (this.table.length - 1);
+        this.table[index] = new Node(normalized(key, hash), hash, value, this.table[index]);
+        this.size++;
+        this.modCount++;
+        if(this.size > this.table.length * 3 / 4) {
+            this.resize();
+        }
+        return null;
+    }
+
+    @Override
+    public List<String> remove(Object key) {
+        if(key != null && ! (key instanceof String)) return null;
+        int hash = hash((String) key);
+        int index = hash & (this.table.length - 1);
+        for(Node previous = null, node = this.table[index] ; node != null ; previous = node, node = node.next) {
+            if(node.hash == hash && equalsFolded(node.key, (String) key)) {
+                this.unlink(index, previous, node);
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.table, null);
+        this.size = 0;
+        this.modCount++;
+    }
+
+    @Override
+    public Set<Entry<String, List<String>>> entrySet() {
+        if(this.entrySet == null) {
+            this.entrySet = new EntrySet();
+        }
+        return this.entrySet;
+    }
+
+    private Node node(Object key) {
+        if(key != null && ! (key instanceof String)) return null;
+        return this.node((String) key, hash((String) key));
+    }
+
+    private Node node(String key, int hash) {
+        for(Node node = this.table[hash & (this.table.length - 1)] ; node != null ; node = node.next) {
+            if(node.hash == hash && equalsFolded(node.key, key)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private void unlink(int index, Node previous, Node node) {
+        if(previous == null) {
+            this.table[index] = node.next;
+        } else {
+            previous.next = node.next;
+        }
+        this.size--;
+        this.modCount++;
+    }
+
+    private void resize() {
+        Node[] old = this.table;
+        this.table = new Node[old.length * 2];
+        for (Node head : old) {
+            for(Node node = head ; node != null ; ) {
+                Node next = node.next;
+                int index = node.hash & (this.table.length - 1);
+                node.next = this.table[index];
+                this.table[index] = node;
+                node = next;
+            }
+        }
+    }
+
+    static int hash(String key) {
+        if(key == null) return 0;
+        int h = 0;
+        for (int i = 0; i < key.length(); i++) {
+            h = 31 * h + fold(key.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    static private char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    static private boolean equalsFolded(String stored, String key) {
+        if(stored == key) return true;
+        if(stored == null || key == null || stored.length() != key.length()) return false;
+        for (int i = 0; i < stored.length(); i++) {
+            if(fold(stored.charAt(i)) != fold(key.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    static private String normalized(String key, int hash) {
+        if(key == null) return null;
+
+        for(int index = hash & (INTERNED.length - 1) ; INTERNED[index] != null ; index = (index + 1) & (INTERNED.length - 1)) {
+            if(equalsFolded(INTERNED[index], key)) {
+                return INTERNED[index];
+            }
+        }
+
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if(c >= 'A' && c <= 'Z') {
+                char[] chars = key.toCharArray();
+                for (int j = i; j < chars.length; j++) {
+                    chars[j] = fold(chars[j]);
+                }
+                return new String(chars);
+            }
+        }
+        return key;
+    }
+
+    static private final class Node implements Entry<String, List<String>> {
+        private final String key;
+        private final int hash;
+        private List<String> value;
+        private Node next;
+
+        private Node(String key, int hash, List<String> value, Node next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public List<String> getValue() {
+            return value;
+        }
+
+        @Override
+        public List<String> setValue(List<String> value) {
+            List<String> previous = this.value;
+            this.value = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(! (o instanceof Entry)) return false;
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return Objects.equals(this.key, e.getKey()) && Objects.equals(this.value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(this.key) ^ Objects.hashCode(this.value);
+        }
+
+        @Override
+        public String toString() {
+            return this.key + "=" + this.value;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, List<String>>> {
+        @Override
+        public Iterator<Entry<String, List<String>>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CaseInsensitiveHeaderMap.this.clear();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, List<String>>> {
+        private int expectedModCount = modCount;
+        private int index = 0;
+        private Node next = null;
+        private Node current = null;
+
+        private EntryIterator() {
+            this.advance();
+        }
+
+        private void advance() {
+            if(this.next != null) {
+                this.next = this.next.next;
+            }
+            while(this.next == null && this.index < table.length) {
+                this.next = table[this.index++];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Entry<String, List<String>> next() {
+            if(modCount != this.expectedModCount) throw new ConcurrentModificationException();
+            if(this.next == null) throw new NoSuchElementException();
+            this.current = this.next;
+            this.advance();
+            return this.current;
+        }
+
+        @Override
+        public void remove() {
+            if(this.current == null) throw new IllegalStateException();
+            if(modCount != this.expectedModCount) throw new ConcurrentModificationException();
+            CaseInsensitiveHeaderMap.this.remove(this.current.key);
+            this.current = null;
+            this.expectedModCount = modCount;
+        }
+    }
+}
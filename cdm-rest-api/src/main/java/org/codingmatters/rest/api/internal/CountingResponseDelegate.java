@@ -0,0 +1,148 @@
+package org.codingmatters.rest.api.internal;
+
+import org.codingmatters.rest.api.ResponseDelegate;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Delegates the response while keeping track of its status and payload size.
+ */
+public class CountingResponseDelegate implements ResponseDelegate {
+
+    private final ResponseDelegate delegate;
+    private int status = 200;
+    private long size = 0;
+
+    public CountingResponseDelegate(ResponseDelegate delegate) {
+        this.delegate = delegate;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public ResponseDelegate contenType(String contenType) {
+        this.delegate.contenType(contenType);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate status(int code) {
+        this.status = code;
+        this.delegate.status(code);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate addHeader(String name, String... value) {
+        this.delegate.addHeader(name, value);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate addHeaderIfNot(String name, String... value) {
+        this.delegate.addHeaderIfNot(name, value);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate payload(String payload, String charset) {
+        // encoded once, counted and handed over as bytes
+        return this.payload(payload != null ? payload.getBytes(Charset.forName(charset)) : null);
+    }
+
+    @Override
+    public ResponseDelegate payload(byte[] bytes) {
+        if(bytes != null) {
+            this.size += bytes.length;
+        }
+        this.delegate.payload(bytes);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate payload(ByteBuffer buffer) {
+        if(buffer != null) {
+            this.size += buffer.remaining();
+        }
+        this.delegate.payload(buffer);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate payload(InputStream in) {
+        if(in instanceof FileInputStream) {
+            // keeps the delegate's file transfer path
+            try {
+                FileChannel channel = ((FileInputStream) in).getChannel();
+                this.size += channel.size() - channel.position();
+            } catch (IOException e) {
+                // size left unknown
+            }
+            this.delegate.payload(in);
+            return this;
+        }
+        this.delegate.payload(in != null ? new CountingInputStream(in) : null);
+        return this;
+    }
+
+    @Override
+    public OutputStream payloadStream() {
+        return new CountingOutputStream(this.delegate.payloadStream());
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.delegate.close();
+    }
+
+    private class CountingInputStream extends FilterInputStream {
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if(b != -1) {
+                size++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if(read > 0) {
+                size += read;
+            }
+            return read;
+        }
+    }
+
+    private class CountingOutputStream extends FilterOutputStream {
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            size += len;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.codingmatters.rest.api.internal;
+
+import java.util.regex.Pattern;
+
+public class PatternCache {
+
+    static public final String MAX_SIZE_PROP = PatternCache.class.getName() + ".max.size";
+
+    static private final PatternCache instance = new PatternCache(Integer.getInteger(MAX_SIZE_PROP, 1024));
+
+    static public Pattern compiled(String regex) {
+        return instance.get(regex);
+    }
+
+    private final BoundedCache<String, Pattern> patterns;
+
+    public PatternCache(int maxSize) {
+        this.patterns = new BoundedCache<>(maxSize);
+    }
+
+    public Pattern get(String regex) {
+        return this.patterns.get(regex, Pattern::compile);
+    }
+
+    public int size() {
+        return this.patterns.size();
+    }
+}
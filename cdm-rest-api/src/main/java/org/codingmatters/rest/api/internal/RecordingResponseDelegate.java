@@ -0,0 +1,280 @@
+package org.codingmatters.rest.api.internal;
+
+import org.codingmatters.rest.api.ResponseDelegate;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes through to a response delegate while recording the response, so that it can be replayed later on other
+ * delegates. Payloads larger than the limit are still written, but the recording is then incomplete and
+ * {@link #recorded()} returns null. File streams are never recorded.
+ */
+public class RecordingResponseDelegate implements ResponseDelegate {
+
+    private final ResponseDelegate delegate;
+    private final int limit;
+
+    private int status = 200;
+    private String contentType;
+    private final List<Header> headers = new ArrayList<>();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private boolean overflowed = false;
+
+    public RecordingResponseDelegate(ResponseDelegate delegate, int limit) {
+        this.delegate = delegate;
+        this.limit = limit;
+    }
+
+    public RecordedResponse recorded() {
+        if(this.overflowed) return null;
+        return new RecordedResponse(this.status, this.contentType, new ArrayList<>(this.headers), this.body.toByteArray());
+    }
+
+    private void record(byte[] bytes, int off, int len) {
+        if(this.overflowed) return;
+        if(this.body.size() + len > this.limit) {
+            this.overflowed = true;
+            this.body.reset();
+        } else {
+            this.body.write(bytes, off, len);
+        }
+    }
+
+    @Override
+    public ResponseDelegate contenType(String contenType) {
+        this.contentType = contenType;
+        this.delegate.contenType(contenType);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate status(int code) {
+        this.status = code;
+        this.delegate.status(code);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate addHeader(String name, String... value) {
+        this.headers.add(new Header(name, value, false));
+        this.delegate.addHeader(name, value);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate addHeaderIfNot(String name, String... value) {
+        this.headers.add(new Header(name, value, true));
+        this.delegate.addHeaderIfNot(name, value);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate payload(String payload, String charset) {
+        if(payload != null) {
+            byte[] bytes = payload.getBytes(Charset.forName(charset));
+            this.record(bytes, 0, bytes.length);
+        }
+        this.delegate.payload(payload, charset);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate payload(byte[] bytes) {
+        if(bytes != null) {
+            this.record(bytes, 0, bytes.length);
+        }
+        this.delegate.payload(bytes);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate payload(ByteBuffer buffer) {
+        if(buffer != null) {
+            ByteBuffer copy = buffer.duplicate();
+            byte[] bytes = new byte[copy.remaining()];
+            copy.get(bytes);
+            this.record(bytes, 0, bytes.length);
+        }
+        this.delegate.payload(buffer);
+        return this;
+    }
+
+    @Override
+    public ResponseDelegate payload(InputStream in) {
+        if(in instanceof FileInputStream) {
+            // not recorded, keeps the delegate's file transfer path
+            this.overflowed = true;
+            this.delegate.payload(in);
+            return this;
+        }
+        this.delegate.payload(in != null ? new RecordingInputStream(in) : null);
+        return this;
+    }
+
+    @Override
+    public OutputStream payloadStream() {
+        return new RecordingOutputStream(this.delegate.payloadStream());
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.delegate.close();
+    }
+
+    private class RecordingInputStream extends FilterInputStream {
+        private RecordingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if(b != -1) {
+                record(new byte[] {(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if(read > 0) {
+                record(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            overflowed = true;
+            return super.skip(n);
+        }
+    }
+
+    private class RecordingOutputStream extends FilterOutputStream {
+        private RecordingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            record(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            record(b, off, len);
+        }
+    }
+
+    static public class Header {
+        private final String name;
+        private final String[] values;
+        private final boolean ifNot;
+
+        private Header(String name, String[] values, boolean ifNot) {
+            this.name = name;
+            this.values = values;
+            this.ifNot = ifNot;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String[] values() {
+            return values;
+        }
+    }
+
+    static public class RecordedResponse {
+        private final int status;
+        private final String contentType;
+        private final List<Header> headers;
+        private final byte[] body;
+
+        private RecordedResponse(int status, String contentType, List<Header> headers, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.headers = Collections.unmodifiableList(headers);
+            this.body = body;
+        }
+
+        public int status() {
+            return status;
+        }
+
+        public List<Header> headers() {
+            return headers;
+        }
+
+        /**
+         * @return all the values of the header, looked up case insensitively, joined with commas as a list header
+         * would be, null if absent. Values added only if not already set are ignored once the header has a value.
+         */
+        public String header(String name) {
+            StringBuilder result = null;
+            for (Header header : this.headers) {
+                if(! header.name.equalsIgnoreCase(name) || header.values == null) continue;
+                if(header.ifNot && result != null) continue;
+                for (String value : header.values) {
+                    if(value == null) continue;
+                    if(result == null) {
+                        result = new StringBuilder(value);
+                    } else {
+                        result.append(", ").append(value);
+                    }
+                }
+            }
+            return result != null ? result.toString() : null;
+        }
+
+        public byte[] body() {
+            return body;
+        }
+
+        /**
+         * @return approximate memory footprint in bytes.
+         */
+        public int weight() {
+            int result = 64 + this.body.length;
+            for (Header header : this.headers) {
+                result += 32 + header.name.length() * 2;
+                if(header.values != null) {
+                    for (String value : header.values) {
+                        result += 16 + (value != null ? value.length() * 2 : 0);
+                    }
+                }
+            }
+            return result;
+        }
+
+        public void replay(ResponseDelegate responseDelegate) {
+            this.replay(responseDelegate, true);
+        }
+
+        public void replay(ResponseDelegate responseDelegate, boolean withBody) {
+            responseDelegate.status(this.status);
+            if(this.contentType != null) {
+                responseDelegate.contenType(this.contentType);
+            }
+            for (Header header : this.headers) {
+                if(header.ifNot) {
+                    responseDelegate.addHeaderIfNot(header.name, header.values);
+                } else {
+                    responseDelegate.addHeader(header.name, header.values);
+                }
+            }
+            if(withBody && this.body.length > 0) {
+                responseDelegate.payload(ByteBuffer.wrap(this.body).asReadOnlyBuffer());
+            }
+        }
+    }
+}
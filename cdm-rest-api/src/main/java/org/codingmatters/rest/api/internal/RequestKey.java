@@ -0,0 +1,54 @@
+package org.codingmatters.rest.api.internal;
+
+import org.codingmatters.rest.api.RequestDelegate;
+
+import java.util.*;
+
+/**
+ * Identity of a request for response sharing : method, path, query parameters sorted by name, and the values of
+ * selected headers.
+ *
+ * Each name and value is prefixed with its length, so that no value can be mistaken for a separator (?x=a,b and
+ * ?x=a&amp;x=b give distinct keys).
+ */
+public class RequestKey {
+
+    static public String of(RequestDelegate requestDelegate, Collection<String> headers) {
+        StringBuilder result = new StringBuilder(128).append(requestDelegate.method()).append(' ');
+        append(result, requestDelegate.path());
+
+        Map<String, List<String>> queryParameters = requestDelegate.queryParameters();
+        if(queryParameters != null && ! queryParameters.isEmpty()) {
+            for (Map.Entry<String, List<String>> parameter : new TreeMap<>(queryParameters).entrySet()) {
+                append(result, parameter.getKey());
+                appendAll(result, parameter.getValue());
+            }
+        }
+
+        result.append('|');
+        Map<String, List<String>> requestHeaders = requestDelegate.headers();
+        for (String header : headers) {
+            appendAll(result, requestHeaders.get(header));
+        }
+        return result.toString();
+    }
+
+    static private void appendAll(StringBuilder result, List<String> values) {
+        if(values == null) {
+            result.append('!');
+            return;
+        }
+        result.append('[').append(values.size()).append(']');
+        for (String value : values) {
+            append(result, value);
+        }
+    }
+
+    static private void append(StringBuilder result, String value) {
+        if(value == null) {
+            result.append('~');
+        } else {
+            result.append(value.length()).append(':').append(value);
+        }
+    }
+}
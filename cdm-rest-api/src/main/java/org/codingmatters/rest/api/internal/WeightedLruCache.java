@@ -0,0 +1,255 @@
+package org.codingmatters.rest.api.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * LRU cache bounded by the total weight of its values.
+ *
+ * Admission follows TinyLFU : when room must be made, the candidate is only admitted if it has been accessed more
+ * often than the LRU entries it would evict, access frequencies being approximated by a count-min sketch. This keeps
+ * one-off keys from flushing hot entries.
+ *
+ * Reads are lock free : values are looked up in a concurrent map, and accesses are recorded in a bounded buffer,
+ * replayed on the recency order and the frequency sketch under the lock by the next write, or by a read when the
+ * buffer fills up and the lock is free. Accesses are dropped when the buffer is full, recency and frequencies being
+ * approximate anyway.
+ */
+public class WeightedLruCache<K, V> {
+
+    static private final int READ_BUFFER_SIZE = 128;
+    static private final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    static private final int READ_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+    private final long maxWeight;
+    private final ToIntFunction<V> weigher;
+    private final FrequencySketch sketch;
+
+    private final ConcurrentHashMap<K, Weighted<V>> values = new ConcurrentHashMap<>();
+
+    private final AtomicReferenceArray<K> reads = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readsRecorded = new AtomicLong();
+    private volatile long readsDrained = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Weighted<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight = 0;
+    private long evictions = 0;
+    private long rejections = 0;
+
+    public WeightedLruCache(long maxWeight, int expectedEntries, ToIntFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch(expectedEntries);
+    }
+
+    public V get(K key) {
+        Weighted<V> entry = this.values.get(key);
+        this.recordRead(key);
+        return entry != null ? entry.value : null;
+    }
+
+    private void recordRead(K key) {
+        long recorded = this.readsRecorded.get();
+        long pending = recorded - this.readsDrained;
+        if(pending < READ_BUFFER_SIZE && this.readsRecorded.compareAndSet(recorded, recorded + 1)) {
+            this.reads.lazySet((int) (recorded & READ_BUFFER_MASK), key);
+        }
+        if(pending >= READ_DRAIN_THRESHOLD && this.lock.tryLock()) {
+            try {
+                this.drainReads();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Replays recorded reads, to be called holding the lock. Stops at a slot claimed but not written yet.
+     */
+    private void drainReads() {
+        long recorded = this.readsRecorded.get();
+        long drained = this.readsDrained;
+        for (; drained < recorded; drained++) {
+            int index = (int) (drained & READ_BUFFER_MASK);
+            K key = this.reads.get(index);
+            if(key == null) break;
+            this.reads.lazySet(index, null);
+            this.sketch.increment(key.hashCode());
+            this.entries.get(key);
+        }
+        this.readsDrained = drained;
+    }
+
+    /**
+     * @return true if the value was admitted in the cache.
+     */
+    public boolean put(K key, V value) {
+        int valueWeight = this.weigher.applyAsInt(value);
+        this.lock.lock();
+        try {
+            this.drainReads();
+            Weighted<V> previous = this.entries.remove(key);
+            if(previous != null) {
+                this.values.remove(key);
+                this.weight -= previous.weight;
+            }
+            if(valueWeight > this.maxWeight || ! this.admit(key.hashCode(), valueWeight)) {
+                this.rejections++;
+                return false;
+            }
+            while(this.weight + valueWeight > this.maxWeight) {
+                Iterator<Map.Entry<K, Weighted<V>>> eldest = this.entries.entrySet().iterator();
+                Map.Entry<K, Weighted<V>> evicted = eldest.next();
+                this.values.remove(evicted.getKey());
+                this.weight -= evicted.getValue().weight;
+                eldest.remove();
+                this.evictions++;
+            }
+            Weighted<V> entry = new Weighted<>(value, valueWeight);
+            this.entries.put(key, entry);
+            this.values.put(key, entry);
+            this.weight += valueWeight;
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public void remove(K key) {
+        this.lock.lock();
+        try {
+            Weighted<V> previous = this.entries.remove(key);
+            if(previous != null) {
+                this.values.remove(key);
+                this.weight -= previous.weight;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private boolean admit(int hash, int valueWeight) {
+        long needed = this.weight + valueWeight - this.maxWeight;
+        if(needed <= 0) return true;
+
+        int candidateFrequency = this.sketch.frequency(hash);
+        for (Map.Entry<K, Weighted<V>> victim : this.entries.entrySet()) {
+            if(this.sketch.frequency(victim.getKey().hashCode()) >= candidateFrequency) {
+                return false;
+            }
+            needed -= victim.getValue().weight;
+            if(needed <= 0) return true;
+        }
+        return true;
+    }
+
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.entries.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public long weight() {
+        this.lock.lock();
+        try {
+            return this.weight;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public long evictions() {
+        this.lock.lock();
+        try {
+            return this.evictions;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public long rejections() {
+        this.lock.lock();
+        try {
+            return this.rejections;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    static private class Weighted<V> {
+        private final V value;
+        private final int weight;
+
+        private Weighted(V value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Count-min sketch with 4 rows of counters saturating at 15. Counters are halved once the number of increments
+     * reaches 10 times the width, so that frequencies reflect recent accesses.
+     */
+    static class FrequencySketch {
+        static private final int[] SEEDS = {0x97cb3127, 0xb8f5c7a5, 0x6ad5b2b9, 0x3c6ef372};
+        static private final int MAX_COUNT = 15;
+
+        private final int[][] rows;
+        private final int mask;
+        private final int sampleSize;
+        private int additions = 0;
+
+        FrequencySketch(int expectedEntries) {
+            int width = Integer.highestOneBit(Math.max(16, expectedEntries - 1) << 1);
+            this.rows = new int[SEEDS.length][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        void increment(int hash) {
+            boolean incremented = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = this.index(hash, i);
+                if(this.rows[i][index] < MAX_COUNT) {
+                    this.rows[i][index]++;
+                    incremented = true;
+                }
+            }
+            if(incremented && ++this.additions >= this.sampleSize) {
+                this.reset();
+            }
+        }
+
+        int frequency(int hash) {
+            int result = MAX_COUNT;
+            for (int i = 0; i < SEEDS.length; i++) {
+                result = Math.min(result, this.rows[i][this.index(hash, i)]);
+            }
+            return result;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+            return (h ^ (h >>> 16)) & this.mask;
+        }
+
+        private void reset() {
+            for (int[] row : this.rows) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+            this.additions /= 2;
+        }
+    }
+}
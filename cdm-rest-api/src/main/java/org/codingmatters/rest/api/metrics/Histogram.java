@@ -0,0 +1,129 @@
+package org.codingmatters.rest.api.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed buckets histogram, recording is lock free. Buckets are defined by their inclusive upper bounds, an extra
+ * bucket counts values above the last bound.
+ */
+public class Histogram {
+
+    static private final long[] LATENCY_BOUNDS = {
+            TimeUnit.MICROSECONDS.toNanos(100), TimeUnit.MICROSECONDS.toNanos(250), TimeUnit.MICROSECONDS.toNanos(500),
+            TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MICROSECONDS.toNanos(2500), TimeUnit.MILLISECONDS.toNanos(5),
+            TimeUnit.MILLISECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(25), TimeUnit.MILLISECONDS.toNanos(50),
+            TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.MILLISECONDS.toNanos(250), TimeUnit.MILLISECONDS.toNanos(500),
+            TimeUnit.SECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(2500), TimeUnit.SECONDS.toNanos(5),
+            TimeUnit.SECONDS.toNanos(10)
+    };
+
+    /**
+     * @return a histogram of durations in nanoseconds, from 100 microseconds to 10 seconds.
+     */
+    static public Histogram latency() {
+        return new Histogram(LATENCY_BOUNDS);
+    }
+
+    /**
+     * @return a histogram of sizes in bytes, from 64 bytes to 64 megabytes by powers of 4.
+     */
+    static public Histogram sizes() {
+        long[] bounds = new long[11];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = 64L << (2 * i);
+        }
+        return new Histogram(bounds);
+    }
+
+    /**
+     * HDR like precision : each power of two between lowest and highest is split in linear sub buckets, bounding the
+     * relative error to 1 / subBuckets.
+     */
+    static public Histogram logLinear(long lowest, long highest, int subBuckets) {
+        long[] bounds = new long[0];
+        int count = 0;
+        for(long magnitude = Long.highestOneBit(Math.max(1, lowest)) ; magnitude <= highest && magnitude > 0 ; magnitude <<= 1) {
+            long step = Math.max(1, magnitude / subBuckets);
+            for(long bound = magnitude + step ; bound <= magnitude << 1 ; bound += step) {
+                if(count == bounds.length) {
+                    bounds = Arrays.copyOf(bounds, Math.max(16, count * 2));
+                }
+                if(count == 0 || bounds[count - 1] < bound) {
+                    bounds[count++] = bound;
+                }
+            }
+        }
+        return new Histogram(Arrays.copyOf(bounds, count));
+    }
+
+    private final long[] bounds;
+    private final LongAdder[] counts;
+    private final LongAdder sum = new LongAdder();
+
+    public Histogram(long ... bounds) {
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+        this.counts = new LongAdder[this.bounds.length + 1];
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        int index = Arrays.binarySearch(this.bounds, value);
+        this.counts[index >= 0 ? index : -index - 1].increment();
+        this.sum.add(value);
+    }
+
+    public long[] bounds() {
+        return this.bounds.clone();
+    }
+
+    /**
+     * @return counts by bucket (not cumulative), the last one counting values above the last bound.
+     */
+    public long[] counts() {
+        long[] result = new long[this.counts.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.counts[i].sum();
+        }
+        return result;
+    }
+
+    public long count() {
+        long result = 0;
+        for (LongAdder count : this.counts) {
+            result += count.sum();
+        }
+        return result;
+    }
+
+    public long sum() {
+        return this.sum.sum();
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the given quantile, Long.MAX_VALUE when above the last bound,
+     * 0 when nothing was recorded.
+     */
+    public long quantile(double quantile) {
+        long[] counts = this.counts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if(total == 0) return 0;
+
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if(seen >= rank && counts[i] > 0) {
+                return i < this.bounds.length ? this.bounds[i] : Long.MAX_VALUE;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
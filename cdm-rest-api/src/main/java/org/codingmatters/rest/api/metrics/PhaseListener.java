@@ -0,0 +1,31 @@
+package org.codingmatters.rest.api.metrics;
+
+/**
+ * Notified with the phase breakdown of each request processed by a generated processor.
+ */
+@FunctionalInterface
+public interface PhaseListener {
+
+    /**
+     * Doesn't time anything.
+     */
+    PhaseListener NONE = new PhaseListener() {
+        @Override
+        public PhaseTimer start(String route) {
+            return PhaseTimer.DISABLED;
+        }
+
+        @Override
+        public void completed(PhaseTimer timer) {
+        }
+    };
+
+    /**
+     * Called from the request thread once the response is processed, implementations must be cheap.
+     */
+    void completed(PhaseTimer timer);
+
+    default PhaseTimer start(String route) {
+        return new PhaseTimer(route, this);
+    }
+}
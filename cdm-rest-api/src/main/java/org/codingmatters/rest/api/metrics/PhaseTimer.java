@@ -0,0 +1,112 @@
+package org.codingmatters.rest.api.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Times the processing phases of one request. Each lap accounts the time elapsed since the previous one to the given
+ * phase, except time spent reading a {@link #timed(InputStream)} payload which is accounted to {@link Phase#BODY_READ}.
+ *
+ * Not thread safe, a timer is used by the request thread only.
+ */
+public final class PhaseTimer {
+
+    public enum Phase {
+        BODY_READ, BODY_PARSING, PARAMETERS, HANDLER, RESPONSE_WRITING
+    }
+
+    static final PhaseTimer DISABLED = new PhaseTimer(null, null);
+
+    private final String route;
+    private final PhaseListener listener;
+    private final long[] durations = new long[Phase.values().length];
+    private final long start;
+    private long last;
+    private long reading;
+    private long total;
+
+    PhaseTimer(String route, PhaseListener listener) {
+        this.route = route;
+        this.listener = listener;
+        this.start = listener != null ? System.nanoTime() : 0L;
+        this.last = this.start;
+    }
+
+    public void lap(Phase phase) {
+        if(this.listener == null) return;
+        long now = System.nanoTime();
+        this.durations[phase.ordinal()] += now - this.last - this.reading;
+        this.durations[Phase.BODY_READ.ordinal()] += this.reading;
+        this.reading = 0;
+        this.last = now;
+    }
+
+    /**
+     * @return the stream, accounting time spent in its read methods to {@link Phase#BODY_READ}.
+     */
+    public InputStream timed(InputStream in) {
+        if(this.listener == null || in == null) return in;
+        return new TimedInputStream(in);
+    }
+
+    public void done() {
+        if(this.listener == null) return;
+        this.total = System.nanoTime() - this.start;
+        this.listener.completed(this);
+    }
+
+    public String route() {
+        return route;
+    }
+
+    /**
+     * @return the phase duration in nanoseconds.
+     */
+    public long duration(Phase phase) {
+        return this.durations[phase.ordinal()];
+    }
+
+    /**
+     * @return the request processing duration in nanoseconds, available once done.
+     */
+    public long total() {
+        return total;
+    }
+
+    private class TimedInputStream extends FilterInputStream {
+        private TimedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.read();
+            } finally {
+                reading += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.read(b, off, len);
+            } finally {
+                reading += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.skip(n);
+            } finally {
+                reading += System.nanoTime() - start;
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.codingmatters.rest.api.metrics;
+
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.api.internal.CountingResponseDelegate;
+import org.codingmatters.rest.api.routing.RouteProcessor;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Per route latency, payload sizes and status counters, as recorded by instrumented route processors. Recording is
+ * lock free.
+ */
+public class RouteMetrics {
+
+    private final Supplier<Histogram> latencyHistograms;
+    private final ConcurrentHashMap<String, Route> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Latencies are recorded in {@link Histogram#latency()} histograms.
+     */
+    public RouteMetrics() {
+        this(Histogram::latency);
+    }
+
+    /**
+     * @param latencyHistograms histograms latencies are recorded in, in nanoseconds.
+     */
+    public RouteMetrics(Supplier<Histogram> latencyHistograms) {
+        this.latencyHistograms = latencyHistograms;
+    }
+
+    public Route route(String name) {
+        Route result = this.routes.get(name);
+        if(result == null) {
+            result = this.routes.computeIfAbsent(name, n -> new Route(this.latencyHistograms.get()));
+        }
+        return result;
+    }
+
+    /**
+     * @return recorded routes by name, sorted by name.
+     */
+    public Map<String, Route> routes() {
+        return Collections.unmodifiableMap(new TreeMap<>(this.routes));
+    }
+
+    public RouteProcessor instrument(String name, RouteProcessor processor) {
+        Route route = this.route(name);
+        return (requestDelegate, responseDelegate, uriParameters) -> {
+            long start = System.nanoTime();
+            CountingResponseDelegate counting = new CountingResponseDelegate(responseDelegate);
+            boolean failed = true;
+            try {
+                processor.process(requestDelegate, counting, uriParameters);
+                failed = false;
+            } finally {
+                route.record(System.nanoTime() - start, requestSize(requestDelegate), counting.size(), failed ? 500 : counting.status());
+            }
+        };
+    }
+
+    static private long requestSize(RequestDelegate requestDelegate) {
+        List<String> contentLength = requestDelegate.headers().get("content-length");
+        if(contentLength == null || contentLength.isEmpty()) return 0;
+        try {
+            return Long.parseLong(contentLength.get(0).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static public class Route {
+        private final Histogram latency;
+        private final Histogram requestSizes = Histogram.sizes();
+        private final Histogram responseSizes = Histogram.sizes();
+        private final AtomicLongArray statuses = new AtomicLongArray(600);
+
+        private Route(Histogram latency) {
+            this.latency = latency;
+        }
+
+        public void record(long latency, long requestSize, long responseSize, int status) {
+            this.latency.record(latency);
+            this.requestSizes.record(requestSize);
+            this.responseSizes.record(responseSize);
+            this.statuses.incrementAndGet(status >= 0 && status < 600 ? status : 0);
+        }
+
+        /**
+         * @return latencies, in nanoseconds.
+         */
+        public Histogram latency() {
+            return latency;
+        }
+
+        public Histogram requestSizes() {
+            return requestSizes;
+        }
+
+        public Histogram responseSizes() {
+            return responseSizes;
+        }
+
+        /**
+         * @return response counts by status code, status codes out of the HTTP range being counted as 0.
+         */
+        public Map<Integer, Long> statuses() {
+            Map<Integer, Long> result = new TreeMap<>();
+            for (int status = 0; status < this.statuses.length(); status++) {
+                long count = this.statuses.get(status);
+                if(count > 0) {
+                    result.put(status, count);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format.
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        Map<String, Route> routes = this.routes();
+
+        out.append("# TYPE cdm_http_request_duration_seconds histogram\n");
+        for (Map.Entry<String, Route> route : routes.entrySet()) {
+            writeHistogram(out, "cdm_http_request_duration_seconds", route.getKey(), route.getValue().latency, 1e9);
+        }
+        out.append("# TYPE cdm_http_request_size_bytes histogram\n");
+        for (Map.Entry<String, Route> route : routes.entrySet()) {
+            writeHistogram(out, "cdm_http_request_size_bytes", route.getKey(), route.getValue().requestSizes, 1);
+        }
+        out.append("# TYPE cdm_http_response_size_bytes histogram\n");
+        for (Map.Entry<String, Route> route : routes.entrySet()) {
+            writeHistogram(out, "cdm_http_response_size_bytes", route.getKey(), route.getValue().responseSizes, 1);
+        }
+        out.append("# TYPE cdm_http_responses_total counter\n");
+        for (Map.Entry<String, Route> route : routes.entrySet()) {
+            for (Map.Entry<Integer, Long> status : route.getValue().statuses().entrySet()) {
+                out.append("cdm_http_responses_total{route=\"").append(escaped(route.getKey()))
+                        .append("\",status=\"").append(status.getKey().toString()).append("\"} ")
+                        .append(status.getValue().toString()).append('\n');
+            }
+        }
+    }
+
+    static private void writeHistogram(Appendable out, String name, String route, Histogram histogram, double unit) throws IOException {
+        String label = "route=\"" + escaped(route) + "\"";
+        long[] bounds = histogram.bounds();
+        long[] counts = histogram.counts();
+        long cumulated = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulated += counts[i];
+            out.append(name).append("_bucket{").append(label).append(",le=\"").append(number(bounds[i] / unit)).append("\"} ")
+                    .append(Long.toString(cumulated)).append('\n');
+        }
+        cumulated += counts[bounds.length];
+        out.append(name).append("_bucket{").append(label).append(",le=\"+Inf\"} ").append(Long.toString(cumulated)).append('\n');
+        out.append(name).append("_sum{").append(label).append("} ").append(number(histogram.sum() / unit)).append('\n');
+        out.append(name).append("_count{").append(label).append("} ").append(Long.toString(cumulated)).append('\n');
+    }
+
+    static private String number(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    static private String escaped(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,44 @@
+package org.codingmatters.rest.api.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the phase breakdown of requests taking longer than the threshold, other requests cost a comparison.
+ */
+public class SlowRequestLog implements PhaseListener {
+
+    static private final Logger log = LoggerFactory.getLogger(SlowRequestLog.class);
+
+    private final long threshold;
+
+    /**
+     * @param threshold request duration, in milliseconds, above which the breakdown is logged.
+     */
+    public SlowRequestLog(long threshold) {
+        this.threshold = TimeUnit.MILLISECONDS.toNanos(threshold);
+    }
+
+    @Override
+    public void completed(PhaseTimer timer) {
+        if(timer.total() > this.threshold && log.isWarnEnabled()) {
+            log.warn(breakdown(timer));
+        }
+    }
+
+    static String breakdown(PhaseTimer timer) {
+        StringBuilder result = new StringBuilder("slow request ").append(timer.route())
+                .append(" took ").append(millis(timer.total())).append("ms :");
+        for (PhaseTimer.Phase phase : PhaseTimer.Phase.values()) {
+            result.append(' ').append(phase.name().toLowerCase()).append('=').append(millis(timer.duration(phase))).append("ms");
+        }
+        return result.toString();
+    }
+
+    static private String millis(long nanos) {
+        return String.format(Locale.ENGLISH, "%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,357 @@
+package org.codingmatters.rest.api.processors;
+
+import org.codingmatters.rest.api.Processor;
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.api.ResponseDelegate;
+import org.codingmatters.rest.api.internal.CountingResponseDelegate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Access log decorator. The request thread only copies the entry's fields into a preallocated slot of a ring buffer,
+ * a background thread formats and writes the entries. When the buffer is full, entries are dropped rather than
+ * blocking the request thread.
+ *
+ * The format is a pattern where the following tokens are replaced :
+ * <ul>
+ *     <li>%t : request start, ISO 8601 instant</li>
+ *     <li>%a : client address</li>
+ *     <li>%m : method</li>
+ *     <li>%U : path</li>
+ *     <li>%r : route, the path when no route function is set</li>
+ *     <li>%s : status</li>
+ *     <li>%b : response payload size in bytes</li>
+ *     <li>%D : latency in microseconds</li>
+ *     <li>%T : latency in milliseconds</li>
+ *     <li>%% : a percent sign</li>
+ * </ul>
+ *
+ * The writer thread is started by the builder and stopped, after writing pending entries, by {@link #close()}.
+ */
+public class AccessLogProcessor implements Processor, AutoCloseable {
+
+    static private final Logger log = LoggerFactory.getLogger(AccessLogProcessor.class);
+    static private final Logger accessLog = LoggerFactory.getLogger("org.codingmatters.rest.access");
+
+    static public final String DEFAULT_FORMAT = "%t %a \"%m %U\" %s %b %D";
+    static public final int DEFAULT_CAPACITY = 8192;
+
+    static public Builder builder(Processor delegate) {
+        return new Builder(delegate);
+    }
+
+    static public class Builder {
+        private final Processor delegate;
+        private String format = DEFAULT_FORMAT;
+        private int capacity = DEFAULT_CAPACITY;
+        private Appendable output;
+        private Function<RequestDelegate, String> route;
+
+        private Builder(Processor delegate) {
+            this.delegate = delegate;
+        }
+
+        public Builder format(String format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * @param capacity number of entries waiting to be written before entries get dropped, rounded up to a power
+         *                 of two.
+         */
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Lines are appended, ending with a line feed, from the writer thread. Flushed when the buffer is drained if
+         * {@link Flushable}. When not set, lines are logged at info level by the org.codingmatters.rest.access logger.
+         */
+        public Builder output(Appendable output) {
+            this.output = output;
+            return this;
+        }
+
+        /**
+         * @param route computes the %r token, it is called from the request thread, so must be cheap.
+         */
+        public Builder route(Function<RequestDelegate, String> route) {
+            this.route = route;
+            return this;
+        }
+
+        public AccessLogProcessor build() {
+            return new AccessLogProcessor(this.delegate, Format.parse(this.format), this.capacity, this.output, this.route);
+        }
+    }
+
+    private final Processor delegate;
+    private final Format format;
+    private final Appendable output;
+    private final Function<RequestDelegate, String> route;
+
+    private final Entry[] entries;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long written = 0;
+    private volatile boolean running = true;
+    private final Thread writer;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private AccessLogProcessor(Processor delegate, Format format, int capacity, Appendable output, Function<RequestDelegate, String> route) {
+        if(capacity < 1) throw new IllegalArgumentException("capacity must be positive, was " + capacity);
+        this.delegate = delegate;
+        this.format = format;
+        this.output = output;
+        this.route = route;
+
+        int size = Integer.highestOneBit(capacity);
+        if(size < capacity) {
+            size <<= 1;
+        }
+        this.entries = new Entry[size];
+        for (int i = 0; i < size; i++) {
+            this.entries[i] = new Entry(i - size);
+        }
+        this.mask = size - 1;
+
+        this.writer = new Thread(this::writeEntries, "access-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) throws IOException {
+        long timestamp = System.currentTimeMillis();
+        long start = System.nanoTime();
+        CountingResponseDelegate counting = new CountingResponseDelegate(responseDelegate);
+        boolean failed = true;
+        try {
+            this.delegate.process(requestDelegate, counting);
+            failed = false;
+        } finally {
+            this.append(requestDelegate, timestamp, System.nanoTime() - start, failed ? 500 : counting.status(), counting.size());
+        }
+    }
+
+    /**
+     * Captures the request's values before claiming a slot : once claimed, the slot must be published whatever
+     * happens, or the writer would wait for it forever.
+     */
+    private void append(RequestDelegate requestDelegate, long timestamp, long latency, int status, long bytes) {
+        RequestDelegate.Method method;
+        String path;
+        String route;
+        String clientAddress;
+        try {
+            method = requestDelegate.method();
+            path = requestDelegate.path();
+            route = this.route != null ? this.route.apply(requestDelegate) : null;
+            clientAddress = requestDelegate.clientAddress();
+        } catch (RuntimeException e) {
+            log.warn("failed capturing access log entry", e);
+            this.dropped.increment();
+            return;
+        }
+
+        long sequence;
+        do {
+            sequence = this.claimed.get();
+            if(sequence - this.written >= this.entries.length) {
+                this.dropped.increment();
+                return;
+            }
+        } while(! this.claimed.compareAndSet(sequence, sequence + 1));
+
+        Entry entry = this.entries[(int) (sequence & this.mask)];
+        entry.timestamp = timestamp;
+        entry.latency = latency;
+        entry.status = status;
+        entry.bytes = bytes;
+        entry.method = method;
+        entry.path = path;
+        entry.route = route;
+        entry.clientAddress = clientAddress;
+        entry.published = sequence;
+    }
+
+    private void writeEntries() {
+        StringBuilder line = new StringBuilder(256);
+        int idle = 0;
+        while(this.running || this.written < this.claimed.get()) {
+            long sequence = this.written;
+            Entry entry = this.entries[(int) (sequence & this.mask)];
+            if(entry.published != sequence) {
+                if(idle++ == 0) {
+                    this.flush();
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.min(idle, 10)));
+                continue;
+            }
+            idle = 0;
+
+            line.setLength(0);
+            this.format.append(line, entry);
+            entry.path = null;
+            entry.route = null;
+            entry.clientAddress = null;
+            this.written = sequence + 1;
+
+            this.write(line);
+        }
+        this.flush();
+    }
+
+    private void write(StringBuilder line) {
+        try {
+            if(this.output != null) {
+                this.output.append(line).append('\n');
+            } else {
+                accessLog.info(line.toString());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("failed writing access log entry", e);
+        }
+    }
+
+    private void flush() {
+        if(this.output instanceof Flushable) {
+            try {
+                ((Flushable) this.output).flush();
+            } catch (IOException e) {
+                log.warn("failed flushing access log", e);
+            }
+        }
+    }
+
+    /**
+     * @return number of entries dropped because the buffer was full.
+     */
+    public long dropped() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * @return number of entries written.
+     */
+    public long written() {
+        return this.written;
+    }
+
+    /**
+     * Writes pending entries and stops the writer thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        this.running = false;
+        this.writer.join();
+    }
+
+    static private class Entry {
+        private volatile long published;
+        private long timestamp;
+        private long latency;
+        private int status;
+        private long bytes;
+        private RequestDelegate.Method method;
+        private String path;
+        private String route;
+        private String clientAddress;
+
+        private Entry(long published) {
+            this.published = published;
+        }
+    }
+
+    static private class Format {
+
+        static Format parse(String pattern) {
+            List<String> literals = new ArrayList<>();
+            List<Character> tokens = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if(c == '%' && i + 1 < pattern.length()) {
+                    char token = pattern.charAt(++i);
+                    if(token == '%') {
+                        literal.append('%');
+                    } else if("tamUrsbDT".indexOf(token) != -1) {
+                        literals.add(literal.toString());
+                        tokens.add(token);
+                        literal.setLength(0);
+                    } else {
+                        throw new IllegalArgumentException("unknown access log format token %" + token + " in " + pattern);
+                    }
+                } else {
+                    literal.append(c);
+                }
+            }
+            literals.add(literal.toString());
+
+            char[] tokenArray = new char[tokens.size()];
+            for (int i = 0; i < tokenArray.length; i++) {
+                tokenArray[i] = tokens.get(i);
+            }
+            return new Format(literals.toArray(new String[0]), tokenArray);
+        }
+
+        private final String[] literals;
+        private final char[] tokens;
+
+        private Format(String[] literals, char[] tokens) {
+            this.literals = literals;
+            this.tokens = tokens;
+        }
+
+        void append(StringBuilder line, Entry entry) {
+            for (int i = 0; i < this.tokens.length; i++) {
+                line.append(this.literals[i]);
+                switch (this.tokens[i]) {
+                    case 't':
+                        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(entry.timestamp), line);
+                        break;
+                    case 'a':
+                        line.append(entry.clientAddress != null ? entry.clientAddress : "-");
+                        break;
+                    case 'm':
+                        line.append(entry.method);
+                        break;
+                    case 'U':
+                        line.append(entry.path);
+                        break;
+                    case 'r':
+                        line.append(entry.route != null ? entry.route : entry.path);
+                        break;
+                    case 's':
+                        line.append(entry.status);
+                        break;
+                    case 'b':
+                        line.append(entry.bytes);
+                        break;
+                    case 'D':
+                        line.append(TimeUnit.NANOSECONDS.toMicros(entry.latency));
+                        break;
+                    case 'T':
+                        line.append(TimeUnit.NANOSECONDS.toMillis(entry.latency));
+                        break;
+                }
+            }
+            line.append(this.literals[this.tokens.length]);
+        }
+    }
+}
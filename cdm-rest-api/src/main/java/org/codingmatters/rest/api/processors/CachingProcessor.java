@@ -0,0 +1,183 @@
+package org.codingmatters.rest.api.processors;
+
+import org.codingmatters.rest.api.Processor;
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.api.ResponseDelegate;
+import org.codingmatters.rest.api.internal.RecordingResponseDelegate;
+import org.codingmatters.rest.api.internal.RecordingResponseDelegate.RecordedResponse;
+import org.codingmatters.rest.api.internal.RequestKey;
+import org.codingmatters.rest.api.internal.WeightedLruCache;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves GET and HEAD responses from memory.
+ *
+ * Responses are keyed by method, path, query parameters and the values of the key headers. They are cached only when
+ * the wrapped processor sets a Cache-Control header with a positive s-maxage or max-age (and neither no-store,
+ * no-cache nor private), their status is heuristically cacheable, they don't set cookies and they don't Vary on
+ * headers outside the key headers. Requests with Cache-Control no-cache or no-store bypass the cache.
+ *
+ * The Authorization and Cookie headers are part of the default key headers, so that responses are only shared
+ * between requests bearing the same credentials. Whatever the key headers, responses to requests with an
+ * Authorization header are only cached when explicitly allowed by public, s-maxage or must-revalidate (RFC 7234, 3.2).
+ *
+ * Memory is bounded by the total size of cached responses, see {@link WeightedLruCache}.
+ */
+public class CachingProcessor implements Processor {
+
+    static public final int DEFAULT_MAX_ENTRY_SIZE = 256 * 1024;
+    static public final List<String> DEFAULT_KEY_HEADERS = Arrays.asList("accept", "accept-encoding", "accept-language", "authorization", "cookie");
+
+    static private final Set<Integer> CACHEABLE_STATUSES = new HashSet<>(Arrays.asList(200, 203, 204, 300, 301, 404, 410));
+    static private final Pattern MAX_AGE = Pattern.compile("(?:^|,)\\s*(s-maxage|max-age)\\s*=\\s*\"?(\\d+)\"?", Pattern.CASE_INSENSITIVE);
+    static private final Pattern NOT_STORABLE = Pattern.compile("(?:^|,)\\s*(no-store|no-cache|private)\\b", Pattern.CASE_INSENSITIVE);
+    static private final Pattern SHARED_WHEN_AUTHORIZED = Pattern.compile("(?:^|,)\\s*(public|s-maxage|must-revalidate)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final Processor delegate;
+    private final int maxEntrySize;
+    private final List<String> keyHeaders;
+    private final WeightedLruCache<String, CachedResponse> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingProcessor(Processor delegate, long maxSize) {
+        this(delegate, maxSize, DEFAULT_MAX_ENTRY_SIZE, DEFAULT_KEY_HEADERS);
+    }
+
+    public CachingProcessor(Processor delegate, long maxSize, int maxEntrySize, Collection<String> keyHeaders) {
+        this.delegate = delegate;
+        this.maxEntrySize = maxEntrySize;
+        this.keyHeaders = new ArrayList<>();
+        for (String header : keyHeaders) {
+            this.keyHeaders.add(header.toLowerCase());
+        }
+        this.cache = new WeightedLruCache<>(maxSize, (int) Math.min(1 << 20, Math.max(16, maxSize / 1024)), CachedResponse::weight);
+    }
+
+    @Override
+    public void process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) throws IOException {
+        RequestDelegate.Method method = requestDelegate.method();
+        if(method != RequestDelegate.Method.GET && method != RequestDelegate.Method.HEAD) {
+            this.delegate.process(requestDelegate, responseDelegate);
+            return;
+        }
+
+        String requestCacheControl = joined(requestDelegate.headers(), "cache-control");
+        boolean bypass = requestCacheControl != null && NOT_STORABLE.matcher(requestCacheControl).find();
+
+        String key = RequestKey.of(requestDelegate, this.keyHeaders);
+        if(! bypass) {
+            CachedResponse cached = this.cache.get(key);
+            if(cached != null) {
+                long now = System.nanoTime();
+                if(cached.expires - now > 0) {
+                    this.hits.increment();
+                    responseDelegate.addHeader("Age", Long.toString(cached.age(now)));
+                    cached.response.replay(responseDelegate, method != RequestDelegate.Method.HEAD);
+                    return;
+                }
+                this.cache.remove(key);
+            }
+        }
+
+        this.misses.increment();
+        RecordingResponseDelegate recording = new RecordingResponseDelegate(responseDelegate, this.maxEntrySize);
+        this.delegate.process(requestDelegate, recording);
+
+        RecordedResponse recorded = recording.recorded();
+        if(recorded != null && ! (requestCacheControl != null && requestCacheControl.toLowerCase().contains("no-store"))) {
+            long ttl = this.ttl(recorded, requestDelegate.headers().containsKey("authorization"));
+            if(ttl > 0) {
+                long now = System.nanoTime();
+                this.cache.put(key, new CachedResponse(recorded, key.length(), now, now + TimeUnit.SECONDS.toNanos(ttl)));
+            }
+        }
+    }
+
+    /**
+     * @return the response's time to live in seconds, 0 when the response is not cacheable.
+     */
+    private long ttl(RecordedResponse response, boolean authorized) {
+        if(! CACHEABLE_STATUSES.contains(response.status())) return 0;
+        if(response.header("set-cookie") != null) return 0;
+
+        String vary = response.header("vary");
+        if(vary != null) {
+            for (String header : vary.split(",")) {
+                if(! this.keyHeaders.contains(header.trim().toLowerCase())) return 0;
+            }
+        }
+
+        String cacheControl = response.header("cache-control");
+        if(cacheControl == null || NOT_STORABLE.matcher(cacheControl).find()) return 0;
+        if(authorized && ! SHARED_WHEN_AUTHORIZED.matcher(cacheControl).find()) return 0;
+
+        long result = 0;
+        Matcher matcher = MAX_AGE.matcher(cacheControl);
+        while(matcher.find()) {
+            long age = Long.parseLong(matcher.group(2));
+            if(matcher.group(1).equalsIgnoreCase("s-maxage")) {
+                return age;
+            }
+            result = age;
+        }
+        return result;
+    }
+
+    static private String joined(Map<String, List<String>> headers, String name) {
+        List<String> values = headers.get(name);
+        return values != null && ! values.isEmpty() ? String.join(", ", values) : null;
+    }
+
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    public int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * @return approximate memory used by cached responses, in bytes.
+     */
+    public long weight() {
+        return this.cache.weight();
+    }
+
+    public long evictions() {
+        return this.cache.evictions();
+    }
+
+    static private class CachedResponse {
+        private final RecordedResponse response;
+        private final int keyLength;
+        private final long created;
+        private final long expires;
+
+        private CachedResponse(RecordedResponse response, int keyLength, long created, long expires) {
+            this.response = response;
+            this.keyLength = keyLength;
+            this.created = created;
+            this.expires = expires;
+        }
+
+        private long age(long now) {
+            return TimeUnit.NANOSECONDS.toSeconds(now - this.created);
+        }
+
+        private int weight() {
+            return this.response.weight() + 64 + 2 * this.keyLength;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.codingmatters.rest.api.processors;
+
+import org.codingmatters.rest.api.Processor;
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.api.ResponseDelegate;
+import org.codingmatters.rest.api.internal.RecordingResponseDelegate;
+import org.codingmatters.rest.api.internal.RecordingResponseDelegate.RecordedResponse;
+import org.codingmatters.rest.api.internal.RequestKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces identical concurrent GET and HEAD requests (same method, path, query parameters and key headers) : the
+ * first one is processed by the wrapped processor while the others wait, then its response is replayed to all of
+ * them.
+ *
+ * Waiters fall back to processing the request themselves when the response is too big to be shared or sets cookies,
+ * when the processing fails, or when it takes longer than the wait timeout.
+ */
+public class CoalescingProcessor implements Processor {
+    static private final Logger log = LoggerFactory.getLogger(CoalescingProcessor.class);
+
+    static public final int DEFAULT_MAX_RESPONSE_SIZE = 1024 * 1024;
+    static public final long DEFAULT_WAIT_TIMEOUT = 30_000L;
+    static public final List<String> DEFAULT_KEY_HEADERS = Arrays.asList("accept", "accept-encoding", "accept-language", "authorization", "cookie");
+
+    private final Processor delegate;
+    private final int maxResponseSize;
+    private final long waitTimeout;
+    private final List<String> keyHeaders;
+
+    private final ConcurrentHashMap<String, CompletableFuture<RecordedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public CoalescingProcessor(Processor delegate) {
+        this(delegate, DEFAULT_MAX_RESPONSE_SIZE, DEFAULT_WAIT_TIMEOUT, DEFAULT_KEY_HEADERS);
+    }
+
+    /**
+     * @param waitTimeout maximum time, in milliseconds, a waiter waits for the in flight response.
+     */
+    public CoalescingProcessor(Processor delegate, int maxResponseSize, long waitTimeout, Collection<String> keyHeaders) {
+        this.delegate = delegate;
+        this.maxResponseSize = maxResponseSize;
+        this.waitTimeout = waitTimeout;
+        this.keyHeaders = new ArrayList<>();
+        for (String header : keyHeaders) {
+            this.keyHeaders.add(header.toLowerCase());
+        }
+    }
+
+    @Override
+    public void process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) throws IOException {
+        RequestDelegate.Method method = requestDelegate.method();
+        if(method != RequestDelegate.Method.GET && method != RequestDelegate.Method.HEAD) {
+            this.delegate.process(requestDelegate, responseDelegate);
+            return;
+        }
+
+        String key = RequestKey.of(requestDelegate, this.keyHeaders);
+        CompletableFuture<RecordedResponse> flight = new CompletableFuture<>();
+        CompletableFuture<RecordedResponse> existing = this.inFlight.putIfAbsent(key, flight);
+
+        if(existing == null) {
+            this.lead(key, flight, requestDelegate, responseDelegate);
+        } else {
+            RecordedResponse response = this.await(existing);
+            if(response != null) {
+                this.coalesced.increment();
+                response.replay(responseDelegate, method != RequestDelegate.Method.HEAD);
+            } else {
+                this.fallbacks.increment();
+                this.delegate.process(requestDelegate, responseDelegate);
+            }
+        }
+    }
+
+    private void lead(String key, CompletableFuture<RecordedResponse> flight, RequestDelegate requestDelegate, ResponseDelegate responseDelegate) throws IOException {
+        this.executions.increment();
+        RecordingResponseDelegate recording = new RecordingResponseDelegate(responseDelegate, this.maxResponseSize);
+        RecordedResponse recorded = null;
+        try {
+            this.delegate.process(requestDelegate, recording);
+            recorded = recording.recorded();
+            if(recorded != null && recorded.header("set-cookie") != null) {
+                recorded = null;
+            }
+        } finally {
+            this.inFlight.remove(key, flight);
+            flight.complete(recorded);
+        }
+    }
+
+    private RecordedResponse await(CompletableFuture<RecordedResponse> flight) {
+        this.waiters.incrementAndGet();
+        try {
+            return flight.get(this.waitTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("coalesced request not completed in time, processing it", e);
+            return null;
+        } finally {
+            this.waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of requests currently waiting for an in flight identical request.
+     */
+    public int waiters() {
+        return this.waiters.get();
+    }
+
+    /**
+     * @return number of requests actually processed by the wrapped processor as flight leaders.
+     */
+    public long executions() {
+        return this.executions.sum();
+    }
+
+    /**
+     * @return number of requests answered with another request's response.
+     */
+    public long coalesced() {
+        return this.coalesced.sum();
+    }
+
+    /**
+     * @return number of waiters that had to process their request themselves.
+     */
+    public long fallbacks() {
+        return this.fallbacks.sum();
+    }
+
+    /**
+     * @return share of coalescable requests that were answered without processing, 0 when none was received.
+     */
+    public double coalescingRatio() {
+        long coalesced = this.coalesced.sum();
+        long total = coalesced + this.executions.sum() + this.fallbacks.sum();
+        return total == 0 ? 0 : (double) coalesced / total;
+    }
+}
@@ -0,0 +1,563 @@
+package org.codingmatters.rest.api.processors;
+
+import org.codingmatters.rest.api.Processor;
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.api.ResponseDelegate;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Negotiates gzip or deflate response encoding from the Accept-Encoding request header, and decodes gzip or
+ * deflate encoded request payloads. Requests encoded otherwise are answered with a 415 status, and requests whose
+ * decoded payload exceeds the maximum inflated size are answered with a 413 status (whatever the wrapped processor
+ * answered once the limit was hit). The decoded request has no Content-Encoding nor Content-Length header.
+ *
+ * Only responses with an allowed content type (matched by prefix, parameters ignored) and at least the minimum
+ * size are compressed. Payloads of unknown size are buffered up to the minimum size before deciding. Compression
+ * is streamed to the delegate's payload stream.
+ */
+public class CompressingProcessor implements Processor {
+
+    static public final int DEFAULT_MIN_SIZE = 1024;
+    static public final long DEFAULT_MAX_INFLATED_SIZE = 16 * 1024 * 1024;
+    static public final List<String> DEFAULT_CONTENT_TYPES = Arrays.asList(
+            "application/json", "application/xml", "application/javascript", "text/"
+    );
+
+    private final Processor delegate;
+    private final int minSize;
+    private final Collection<String> contentTypes;
+    private final long maxInflatedSize;
+
+    public CompressingProcessor(Processor delegate) {
+        this(delegate, DEFAULT_MIN_SIZE, DEFAULT_CONTENT_TYPES);
+    }
+
+    public CompressingProcessor(Processor delegate, int minSize, Collection<String> contentTypes) {
+        this(delegate, minSize, contentTypes, DEFAULT_MAX_INFLATED_SIZE);
+    }
+
+    public CompressingProcessor(Processor delegate, int minSize, Collection<String> contentTypes, long maxInflatedSize) {
+        this.delegate = delegate;
+        this.minSize = minSize;
+        this.contentTypes = contentTypes;
+        this.maxInflatedSize = maxInflatedSize;
+    }
+
+    @Override
+    public void process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) throws IOException {
+        DecodingRequestDelegate decoding = null;
+        ResponseDelegate response = responseDelegate;
+
+        String contentEncoding = first(requestDelegate.headers(), "content-encoding");
+        if(contentEncoding != null && ! contentEncoding.trim().equalsIgnoreCase("identity")) {
+            Encoding requestEncoding = Encoding.from(contentEncoding);
+            if(requestEncoding == null) {
+                responseDelegate.status(415).addHeader("Accept-Encoding", Encoding.supported());
+                return;
+            }
+            decoding = new DecodingRequestDelegate(requestDelegate, requestEncoding, this.maxInflatedSize);
+            requestDelegate = decoding;
+            response = new RejectableResponseDelegate(response, decoding);
+        }
+
+        Encoding accepted = Encoding.accepted(requestDelegate.headers().get("accept-encoding"));
+        if(accepted != null) {
+            response = new EncodingResponseDelegate(response, accepted);
+        }
+
+        try {
+            this.delegate.process(requestDelegate, response);
+        } catch (IOException | UncheckedIOException e) {
+            if(decoding == null || ! decoding.exceeded) throw e;
+        }
+        if(decoding != null && decoding.exceeded) {
+            responseDelegate.status(413);
+        }
+    }
+
+    static private String first(Map<String, List<String>> headers, String name) {
+        List<String> values = headers.get(name);
+        return values != null && ! values.isEmpty() ? values.get(0) : null;
+    }
+
+    enum Encoding {
+        GZIP("gzip") {
+            @Override
+            OutputStream encode(OutputStream out) throws IOException {
+                return new GZIPOutputStream(out, 8192);
+            }
+
+            @Override
+            InputStream decode(InputStream in) throws IOException {
+                return new GZIPInputStream(in, 8192);
+            }
+        },
+        DEFLATE("deflate") {
+            @Override
+            OutputStream encode(OutputStream out) {
+                return new DeflaterOutputStream(out);
+            }
+
+            @Override
+            InputStream decode(InputStream in) {
+                return new InflaterInputStream(in);
+            }
+        };
+
+        static private final Pattern CODING = Pattern.compile("\\s*([^;\\s]+)\\s*(?:;\\s*q\\s*=\\s*([0-9.]+))?.*");
+
+        private final String token;
+
+        Encoding(String token) {
+            this.token = token;
+        }
+
+        abstract OutputStream encode(OutputStream out) throws IOException;
+        abstract InputStream decode(InputStream in) throws IOException;
+
+        static Encoding from(String token) {
+            if(token == null) return null;
+            for (Encoding encoding : values()) {
+                if(encoding.token.equalsIgnoreCase(token.trim())) return encoding;
+            }
+            return null;
+        }
+
+        static String supported() {
+            StringBuilder result = new StringBuilder();
+            for (Encoding encoding : values()) {
+                result.append(result.length() > 0 ? ", " : "").append(encoding.token);
+            }
+            return result.toString();
+        }
+
+        /**
+         * @return the preferred supported encoding, gzip when equally weighted, null when none is acceptable. A coding
+         * listed explicitly is weighted as listed, * only weights the codings that are not.
+         */
+        static Encoding accepted(List<String> acceptEncoding) {
+            if(acceptEncoding == null) return null;
+            Double[] weights = new Double[values().length];
+            Double wildcard = null;
+            for (String header : acceptEncoding) {
+                for (String coding : header.split(",")) {
+                    Matcher matcher = CODING.matcher(coding);
+                    if(! matcher.matches()) continue;
+                    double q = weight(matcher.group(2));
+                    if("*".equals(matcher.group(1))) {
+                        wildcard = q;
+                    } else {
+                        Encoding encoding = from(matcher.group(1));
+                        if(encoding != null) {
+                            weights[encoding.ordinal()] = q;
+                        }
+                    }
+                }
+            }
+
+            Encoding result = null;
+            double best = 0;
+            for (Encoding encoding : values()) {
+                Double q = weights[encoding.ordinal()] != null ? weights[encoding.ordinal()] : wildcard;
+                if(q != null && q > best) {
+                    result = encoding;
+                    best = q;
+                }
+            }
+            return result;
+        }
+
+        static private double weight(String q) {
+            if(q == null) return 1;
+            try {
+                return Double.parseDouble(q);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+
+    private class EncodingResponseDelegate implements ResponseDelegate {
+        private final ResponseDelegate delegate;
+        private final Encoding encoding;
+        private String contentType = null;
+        private boolean alreadyEncoded = false;
+        private boolean varied = false;
+
+        private EncodingResponseDelegate(ResponseDelegate delegate, Encoding encoding) {
+            this.delegate = delegate;
+            this.encoding = encoding;
+        }
+
+        private boolean eligible() {
+            if(this.alreadyEncoded || this.contentType == null) return false;
+            for (String allowed : contentTypes) {
+                if(this.contentType.regionMatches(true, 0, allowed, 0, allowed.length())) {
+                    if(! this.varied) {
+                        this.varied = true;
+                        this.delegate.addHeader("Vary", "Accept-Encoding");
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public ResponseDelegate contenType(String contenType) {
+            this.contentType = contenType;
+            this.delegate.contenType(contenType);
+            return this;
+        }
+
+        @Override
+        public ResponseDelegate status(int code) {
+            this.delegate.status(code);
+            return this;
+        }
+
+        @Override
+        public ResponseDelegate addHeader(String name, String... value) {
+            this.alreadyEncoded |= "content-encoding".equalsIgnoreCase(name);
+            this.delegate.addHeader(name, value);
+            return this;
+        }
+
+        @Override
+        public ResponseDelegate addHeaderIfNot(String name, String... value) {
+            this.alreadyEncoded |= "content-encoding".equalsIgnoreCase(name);
+            this.delegate.addHeaderIfNot(name, value);
+            return this;
+        }
+
+        @Override
+        public ResponseDelegate payload(String payload, String charset) {
+            return this.payload(payload != null ? payload.getBytes(Charset.forName(charset)) : null);
+        }
+
+        @Override
+        public ResponseDelegate payload(byte[] bytes) {
+            if(bytes == null || bytes.length < minSize || ! this.eligible()) {
+                this.delegate.payload(bytes);
+                return this;
+            }
+            try(OutputStream out = this.encodedStream()) {
+                out.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed compressing response payload", e);
+            }
+            return this;
+        }
+
+        @Override
+        public ResponseDelegate payload(ByteBuffer buffer) {
+            if(buffer == null || buffer.remaining() < minSize || ! this.eligible()) {
+                this.delegate.payload(buffer);
+                return this;
+            }
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return this.payload(bytes);
+        }
+
+        @Override
+        public ResponseDelegate payload(InputStream in) {
+            if(! this.eligible()) {
+                this.delegate.payload(in);
+                return this;
+            }
+            try(OutputStream out = this.payloadStream()) {
+                byte[] buffer = new byte[8192];
+                for(int read = in.read(buffer) ; read != -1 ; read = in.read(buffer)) {
+                    out.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed compressing response payload", e);
+            }
+            return this;
+        }
+
+        @Override
+        public OutputStream payloadStream() {
+            if(! this.eligible()) {
+                return this.delegate.payloadStream();
+            }
+            return new DecidingOutputStream(this);
+        }
+
+        private OutputStream encodedStream() throws IOException {
+            this.delegate.addHeader("Content-Encoding", this.encoding.token);
+            return this.encoding.encode(this.delegate.payloadStream());
+        }
+
+        @Override
+        public void close() throws Exception {
+            this.delegate.close();
+        }
+    }
+
+    /**
+     * Buffers up to the minimum size, then streams compressed. Payloads closed before reaching it are sent as is.
+     */
+    private class DecidingOutputStream extends OutputStream {
+        private final EncodingResponseDelegate response;
+        private ByteArrayOutputStream head = new ByteArrayOutputStream();
+        private OutputStream target = null;
+        private boolean closed = false;
+
+        private DecidingOutputStream(EncodingResponseDelegate response) {
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if(this.target != null) {
+                this.target.write(b, off, len);
+            } else {
+                this.head.write(b, off, len);
+                if(this.head.size() >= minSize) {
+                    this.target = this.response.encodedStream();
+                    this.head.writeTo(this.target);
+                    this.head = null;
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if(this.target != null) {
+                this.target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(this.closed) return;
+            this.closed = true;
+            if(this.target != null) {
+                this.target.close();
+            } else {
+                this.response.delegate.payload(this.head.toByteArray());
+            }
+        }
+    }
+
+    /**
+     * Drops whatever the wrapped processor answers once the request's inflated payload exceeded the limit.
+     */
+    private static class RejectableResponseDelegate implements ResponseDelegate {
+        private final ResponseDelegate delegate;
+        private final DecodingRequestDelegate request;
+
+        private RejectableResponseDelegate(ResponseDelegate delegate, DecodingRequestDelegate request) {
+            this.delegate = delegate;
+            this.request = request;
+        }
+
+        @Override
+        public ResponseDelegate contenType(String contenType) {
+            if(! this.request.exceeded) this.delegate.contenType(contenType);
+            return this;
+        }
+
+        @Override
+        public ResponseDelegate status(int code) {
+            if(! this.request.exceeded) this.delegate.status(code);
+            return this;
+        }
+
+        @Override
+        public ResponseDelegate addHeader(String name, String... value) {
+            if(! this.request.exceeded) this.delegate.addHeader(name, value);
+            return this;
+        }
+
+        @Override
+        public ResponseDelegate addHeaderIfNot(String name, String... value) {
+            if(! this.request.exceeded) this.delegate.addHeaderIfNot(name, value);
+            return this;
+        }
+
+        @Override
+        public ResponseDelegate payload(String payload, String charset) {
+            if(! this.request.exceeded) this.delegate.payload(payload, charset);
+            return this;
+        }
+
+        @Override
+        public ResponseDelegate payload(byte[] bytes) {
+            if(! this.request.exceeded) this.delegate.payload(bytes);
+            return this;
+        }
+
+        @Override
+        public ResponseDelegate payload(ByteBuffer buffer) {
+            if(! this.request.exceeded) this.delegate.payload(buffer);
+            return this;
+        }
+
+        @Override
+        public ResponseDelegate payload(InputStream in) {
+            if(! this.request.exceeded) this.delegate.payload(in);
+            return this;
+        }
+
+        @Override
+        public OutputStream payloadStream() {
+            if(this.request.exceeded) {
+                return new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                    }
+                };
+            }
+            return this.delegate.payloadStream();
+        }
+
+        @Override
+        public void close() throws Exception {
+            this.delegate.close();
+        }
+    }
+
+    private static class DecodingRequestDelegate implements RequestDelegate {
+        private final RequestDelegate delegate;
+        private final Encoding encoding;
+        private final long maxSize;
+        private final Map<String, List<String>> headers;
+        private volatile boolean exceeded = false;
+
+        private DecodingRequestDelegate(RequestDelegate delegate, Encoding encoding, long maxSize) {
+            this.delegate = delegate;
+            this.encoding = encoding;
+            this.maxSize = maxSize;
+            this.headers = RequestDelegate.createHeaderMap(delegate.headers());
+            this.headers.remove("content-encoding");
+            this.headers.remove("content-length");
+        }
+
+        @Override
+        public InputStream payload() throws IOException {
+            return new BoundedInputStream(this.encoding.decode(this.delegate.payload()));
+        }
+
+        @Override
+        public InputStream payloadStream() throws IOException {
+            return new BoundedInputStream(this.encoding.decode(this.delegate.payloadStream()));
+        }
+
+        private class BoundedInputStream extends FilterInputStream {
+            private long read = 0;
+
+            private BoundedInputStream(InputStream in) {
+                super(in);
+            }
+
+            @Override
+            public int read() throws IOException {
+                int result = super.read();
+                if(result != -1) {
+                    this.count(1);
+                }
+                return result;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int result = super.read(b, off, len);
+                if(result > 0) {
+                    this.count(result);
+                }
+                return result;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long result = super.skip(n);
+                this.count(result);
+                return result;
+            }
+
+            private void count(long bytes) throws IOException {
+                this.read += bytes;
+                if(this.read > maxSize) {
+                    exceeded = true;
+                    throw new IOException("inflated request payload exceeds " + maxSize + " bytes");
+                }
+            }
+        }
+
+        @Override
+        public String path() {
+            return this.delegate.path();
+        }
+
+        @Override
+        public Matcher pathMatcher(String regex) {
+            return this.delegate.pathMatcher(regex);
+        }
+
+        @Override
+        public Matcher pathMatcher(Pattern pattern) {
+            return this.delegate.pathMatcher(pattern);
+        }
+
+        @Override
+        public Method method() {
+            return this.delegate.method();
+        }
+
+        @Override
+        public String contentType() {
+            return this.delegate.contentType();
+        }
+
+        @Override
+        public Map<String, List<String>> uriParameters(String pathExpression) {
+            return this.delegate.uriParameters(pathExpression);
+        }
+
+        @Override
+        public Map<String, List<String>> queryParameters() {
+            return this.delegate.queryParameters();
+        }
+
+        @Override
+        public Map<String, List<String>> headers() {
+            return this.headers;
+        }
+
+        @Override
+        public String absolutePath(String relative) {
+            return this.delegate.absolutePath(relative);
+        }
+
+        @Override
+        public String clientAddress() {
+            return this.delegate.clientAddress();
+        }
+
+        @Override
+        public void close() throws Exception {
+            this.delegate.close();
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.codingmatters.rest.api.ResponseDelegate;
 import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 public class MatchingPathProcessor implements Processor {
 
@@ -14,10 +15,18 @@ public class MatchingPathProcessor implements Processor {
         return new Builder().whenMatching(pattern, processor);
     }
 
+    static public Builder whenMatching(Pattern pattern, Processor processor) {
+        return new Builder().whenMatching(pattern, processor);
+    }
+
     static public class Builder {
-        private final LinkedHashMap<String, Processor> processors = new LinkedHashMap<>();
+        private final LinkedHashMap<Pattern, Processor> processors = new LinkedHashMap<>();
 
         public Builder whenMatching(String pattern, Processor processor) {
+            return this.whenMatching(Pattern.compile(pattern), processor);
+        }
+
+        public Builder whenMatching(Pattern pattern, Processor processor) {
             this.processors.put(pattern, processor);
             return this;
         }
@@ -28,16 +37,16 @@ public class MatchingPathProcessor implements Processor {
     }
 
     private final Processor defaultProcessor;
-    private final LinkedHashMap<String, Processor> processors;
+    private final LinkedHashMap<Pattern, Processor> processors;
 
-    private MatchingPathProcessor(Processor defaultProcessor, LinkedHashMap<String, Processor> processors) {
+    private MatchingPathProcessor(Processor defaultProcessor, LinkedHashMap<Pattern, Processor> processors) {
         this.defaultProcessor = defaultProcessor;
         this.processors = processors;
     }
 
     @Override
     public void process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) throws IOException {
-        for (Map.Entry<String, Processor> processorEntry : this.processors.entrySet()) {
+        for (Map.Entry<Pattern, Processor> processorEntry : this.processors.entrySet()) {
             if(requestDelegate.pathMatcher(processorEntry.getKey()).matches()) {
                 processorEntry.getValue().process(requestDelegate, responseDelegate);
                 return ;
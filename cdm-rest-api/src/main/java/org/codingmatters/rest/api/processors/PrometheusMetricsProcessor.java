@@ -0,0 +1,34 @@
+package org.codingmatters.rest.api.processors;
+
+import org.codingmatters.rest.api.Processor;
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.api.ResponseDelegate;
+import org.codingmatters.rest.api.metrics.RouteMetrics;
+
+import java.io.IOException;
+
+/**
+ * Serves route metrics in the Prometheus text exposition format. Mount it on the scrape path, for instance with
+ * {@link MatchingPathProcessor}.
+ */
+public class PrometheusMetricsProcessor implements Processor {
+
+    static public final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final RouteMetrics metrics;
+
+    public PrometheusMetricsProcessor(RouteMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) throws IOException {
+        if(! (requestDelegate.method().equals(RequestDelegate.Method.GET) || requestDelegate.method().equals(RequestDelegate.Method.HEAD))) {
+            responseDelegate.status(405).addHeader("Allow", "GET, HEAD");
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        this.metrics.writePrometheus(text);
+        responseDelegate.status(200).contenType(CONTENT_TYPE).payload(text.toString(), "utf-8");
+    }
+}
@@ -0,0 +1,182 @@
+package org.codingmatters.rest.api.processors;
+
+import org.codingmatters.rest.api.Processor;
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.api.ResponseDelegate;
+import org.codingmatters.rest.api.routing.UriTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket admission control : each key (client address, header value, route...) may issue up to burst requests
+ * at once, then requests at the given rate. Requests exceeding their key's limit are answered with a 429 and a
+ * Retry-After header. Requests without key share a single bucket.
+ *
+ * Buckets are lock free : a bucket is a single theoretical arrival time updated by compare and set (generic cell rate
+ * algorithm, equivalent to a token bucket). Known keys are looked up without allocation. When the number of buckets
+ * exceeds the maximum, buckets that are full again are dropped (at most once a second). New keys arriving while
+ * buckets are still at the maximum share a single overflow bucket, so that client chosen keys can't grow the map.
+ */
+public class RateLimitingProcessor implements Processor {
+    static private final Logger log = LoggerFactory.getLogger(RateLimitingProcessor.class);
+
+    static public final int DEFAULT_MAX_KEYS = 100_000;
+    static private final String NO_KEY = "";
+
+    @FunctionalInterface
+    public interface Key {
+        /**
+         * @return the key the request is limited on, null if none.
+         */
+        String of(RequestDelegate requestDelegate);
+
+        static Key clientAddress() {
+            return RequestDelegate::clientAddress;
+        }
+
+        static Key header(String name) {
+            String lowerCased = name.toLowerCase();
+            return requestDelegate -> {
+                List<String> values = requestDelegate.headers().get(lowerCased);
+                return values != null && ! values.isEmpty() ? values.get(0) : null;
+            };
+        }
+
+        /**
+         * @return the first template matching the request path, null if none matches.
+         */
+        static Key route(String ... templates) {
+            List<UriTemplate> compiled = new ArrayList<>(templates.length);
+            for (String template : templates) {
+                compiled.add(UriTemplate.compile(template));
+            }
+            return requestDelegate -> {
+                String path = requestDelegate.path();
+                for (UriTemplate template : compiled) {
+                    if(template.matches(path)) {
+                        return template.template();
+                    }
+                }
+                return null;
+            };
+        }
+    }
+
+    private final Processor delegate;
+    private final Key key;
+    private final long interval;
+    private final long tolerance;
+    private final int maxKeys;
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Bucket overflow = new Bucket(System.nanoTime());
+    private final AtomicLong lastCleanup = new AtomicLong(System.nanoTime() - TimeUnit.SECONDS.toNanos(1));
+    private final LongAdder rejected = new LongAdder();
+
+    public RateLimitingProcessor(Processor delegate, Key key, double permitsPerSecond, int burst) {
+        this(delegate, key, permitsPerSecond, burst, DEFAULT_MAX_KEYS);
+    }
+
+    public RateLimitingProcessor(Processor delegate, Key key, double permitsPerSecond, int burst, int maxKeys) {
+        if(permitsPerSecond <= 0) throw new IllegalArgumentException("permitsPerSecond must be positive, was " + permitsPerSecond);
+        if(burst < 1) throw new IllegalArgumentException("burst must be at least 1, was " + burst);
+        this.delegate = delegate;
+        this.key = key;
+        this.interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.tolerance = this.interval * (burst - 1);
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public void process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) throws IOException {
+        String key = this.key.of(requestDelegate);
+        if(key == null) {
+            key = NO_KEY;
+        }
+
+        long now = System.nanoTime();
+        long wait = this.bucket(key, now).acquire(now);
+        if(wait <= 0) {
+            this.delegate.process(requestDelegate, responseDelegate);
+        } else {
+            this.rejected.increment();
+            log.debug("request rate limited for key {}, {}", key, requestDelegate);
+            responseDelegate.status(429)
+                    .addHeader("Retry-After", Long.toString(Math.max(1L, (wait + 999_999_999L) / 1_000_000_000L)))
+                    .contenType("application/json")
+                    .payload("{\"description\":\"too many requests, retry later.\"}", "utf-8");
+        }
+    }
+
+    private Bucket bucket(String key, long now) {
+        Bucket result = this.buckets.get(key);
+        if(result == null) {
+            if(this.buckets.size() >= this.maxKeys) {
+                this.dropFullBuckets(now);
+                if(this.buckets.size() >= this.maxKeys) {
+                    return this.overflow;
+                }
+            }
+            result = this.buckets.computeIfAbsent(key, k -> new Bucket(now));
+        }
+        return result;
+    }
+
+    private void dropFullBuckets(long now) {
+        long last = this.lastCleanup.get();
+        if(now - last < TimeUnit.SECONDS.toNanos(1) || ! this.lastCleanup.compareAndSet(last, now)) return;
+        for (Iterator<Bucket> buckets = this.buckets.values().iterator(); buckets.hasNext(); ) {
+            if(buckets.next().arrival.get() - now <= 0) {
+                buckets.remove();
+            }
+        }
+    }
+
+    /**
+     * @return number of requests answered with a 429.
+     */
+    public long rejected() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * @return number of keys currently tracked.
+     */
+    public int keys() {
+        return this.buckets.size();
+    }
+
+    private class Bucket {
+        private final AtomicLong arrival;
+
+        private Bucket(long now) {
+            this.arrival = new AtomicLong(now);
+        }
+
+        /**
+         * @return 0 when a permit was acquired, otherwise the time, in nanoseconds, until one is available.
+         */
+        private long acquire(long now) {
+            while(true) {
+                long current = this.arrival.get();
+                long start = current - now > 0 ? current : now;
+                long wait = start - tolerance - now;
+                if(wait > 0) {
+                    return wait;
+                }
+                if(this.arrival.compareAndSet(current, start + interval)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.codingmatters.rest.api.routing;
+
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.api.ResponseDelegate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@FunctionalInterface
+public interface RouteProcessor {
+    void process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate, Map<String, List<String>> uriParameters) throws IOException;
+}
@@ -0,0 +1,185 @@
+package org.codingmatters.rest.api.routing;
+
+import org.codingmatters.rest.api.RequestDelegate;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Segment trie resolving a request path and method to a route target and its uri parameters.
+ *
+ * Templates are parsed as {@link UriTemplate}s (/resource/{param}). The trie is built once, lookups walk the
+ * path segments once, literal segments being preferred to parameter segments. As with the
+ * previously generated /? regexes, a single trailing slash is ignored.
+ */
+public class RouteTrie<T> {
+
+    static public <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    static public class Builder<T> {
+        private final Node<T> root = new Node<>();
+
+        public Builder<T> route(String template, RequestDelegate.Method method, T target) {
+            return this.route(UriTemplate.compile(template), method, target);
+        }
+
+        public Builder<T> route(UriTemplate template, RequestDelegate.Method method, T target) {
+            Node<T> node = this.root;
+            for (UriTemplate.Segment segment : template.segments()) {
+                node = node.child(segment);
+            }
+            node.routes.putIfAbsent(method, new Route<>(target, template.names()));
+            return this;
+        }
+
+        public RouteTrie<T> build() {
+            return new RouteTrie<>(this.root);
+        }
+    }
+
+    static public class Match<T> {
+        private final T target;
+        private final Map<String, List<String>> uriParameters;
+
+        private Match(T target, Map<String, List<String>> uriParameters) {
+            this.target = target;
+            this.uriParameters = uriParameters;
+        }
+
+        public T target() {
+            return target;
+        }
+
+        public Map<String, List<String>> uriParameters() {
+            return uriParameters;
+        }
+    }
+
+    private final Node<T> root;
+
+    private RouteTrie(Node<T> root) {
+        this.root = root;
+    }
+
+    public Match<T> match(RequestDelegate.Method method, String path) {
+        if(method == null || path == null) return null;
+
+        List<String> segments = segments(path);
+        ArrayList<String> captures = new ArrayList<>(segments.size());
+        Route<T> route = this.lookup(this.root, segments, 0, method, captures);
+        if(route == null) return null;
+
+        Map<String, List<String>> uriParameters = new TreeMap<>();
+        for (int i = 0; i < route.names.size(); i++) {
+            uriParameters.computeIfAbsent(route.names.get(i), name -> new LinkedList<>()).add(captures.get(i));
+        }
+        return new Match<>(route.target, uriParameters);
+    }
+
+    private Route<T> lookup(Node<T> node, List<String> segments, int index, RequestDelegate.Method method, ArrayList<String> captures) {
+        if(index == segments.size()) {
+            return node.routes.get(method);
+        }
+        String segment = segments.get(index);
+
+        Node<T> literal = node.literals.get(segment);
+        if(literal != null) {
+            Route<T> route = this.lookup(literal, segments, index + 1, method, captures);
+            if(route != null) return route;
+        }
+
+        for (SegmentPattern<T> pattern : node.patterns.values()) {
+            Matcher matcher = pattern.pattern.matcher(segment);
+            if(matcher.matches() && this.hasNoEmptyGroup(matcher)) {
+                int mark = captures.size();
+                for (int group = 1; group <= matcher.groupCount(); group++) {
+                    captures.add(matcher.group(group));
+                }
+                Route<T> route = this.lookup(pattern.node, segments, index + 1, method, captures);
+                if(route != null) return route;
+                while(captures.size() > mark) {
+                    captures.remove(captures.size() - 1);
+                }
+            }
+        }
+
+        if(node.variable != null && ! segment.isEmpty()) {
+            captures.add(segment);
+            Route<T> route = this.lookup(node.variable, segments, index + 1, method, captures);
+            if(route != null) return route;
+            captures.remove(captures.size() - 1);
+        }
+        return null;
+    }
+
+    private boolean hasNoEmptyGroup(Matcher matcher) {
+        for (int group = 1; group <= matcher.groupCount(); group++) {
+            if(matcher.group(group).isEmpty()) return false;
+        }
+        return true;
+    }
+
+    static List<String> segments(String path) {
+        List<String> result = new ArrayList<>();
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.length();
+        if(end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        if(start >= end) return result;
+
+        for(int from = start ; ; ) {
+            int next = path.indexOf('/', from);
+            if(next == -1 || next > end) {
+                next = end;
+            }
+            result.add(path.substring(from, next));
+            if(next >= end) break;
+            from = next + 1;
+        }
+        return result;
+    }
+
+    static private class Node<T> {
+        private final Map<String, Node<T>> literals = new HashMap<>();
+        private final LinkedHashMap<String, SegmentPattern<T>> patterns = new LinkedHashMap<>();
+        private Node<T> variable = null;
+        private final EnumMap<RequestDelegate.Method, Route<T>> routes = new EnumMap<>(RequestDelegate.Method.class);
+
+        private Node<T> child(UriTemplate.Segment segment) {
+            switch (segment.type()) {
+                case VARIABLE:
+                    if(this.variable == null) {
+                        this.variable = new Node<>();
+                    }
+                    return this.variable;
+                case PATTERN:
+                    return this.patterns.computeIfAbsent(segment.pattern().pattern(), regex -> new SegmentPattern<>(segment.pattern())).node;
+                default:
+                    return this.literals.computeIfAbsent(segment.literal(), literal -> new Node<>());
+            }
+        }
+    }
+
+    static private class SegmentPattern<T> {
+        private final Pattern pattern;
+        private final Node<T> node = new Node<>();
+
+        private SegmentPattern(Pattern pattern) {
+            this.pattern = pattern;
+        }
+    }
+
+    static private class Route<T> {
+        private final T target;
+        private final List<String> names;
+
+        private Route(T target, List<String> names) {
+            this.target = target;
+            this.names = names;
+        }
+    }
+}
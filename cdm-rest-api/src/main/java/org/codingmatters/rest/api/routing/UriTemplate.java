@@ -0,0 +1,242 @@
+package org.codingmatters.rest.api.routing;
+
+import org.codingmatters.rest.api.internal.BoundedCache;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Uri template (/resource/{param}/sub) parsed once into literal and variable segments.
+ *
+ * Literal parts are matched as is. A template ending with /? accepts an optional trailing slash
+ * (the form used by previously generated processors). Variables match any (possibly empty) text
+ * up to the next slash.
+ */
+public class UriTemplate {
+
+    static public final String CACHE_SIZE_PROP = UriTemplate.class.getName() + ".cache.size";
+
+    static private final BoundedCache<String, UriTemplate> cache = new BoundedCache<>(Integer.getInteger(CACHE_SIZE_PROP, 1024));
+
+    static private final Pattern VARIABLE = Pattern.compile("\\{([^}]+)}");
+    static private final String OPTIONAL_TRAILING_SLASH = "/?";
+
+    static public UriTemplate compiled(String template) {
+        return cache.get(template, UriTemplate::compile);
+    }
+
+    static public UriTemplate compile(String template) {
+        return new UriTemplate(template);
+    }
+
+    public enum SegmentType {
+        LITERAL, VARIABLE, PATTERN
+    }
+
+    static public class Segment {
+        private final SegmentType type;
+        private final String literal;
+        private final Pattern pattern;
+        private final List<String> names;
+
+        private Segment(SegmentType type, String literal, Pattern pattern, List<String> names) {
+            this.type = type;
+            this.literal = literal;
+            this.pattern = pattern;
+            this.names = Collections.unmodifiableList(names);
+        }
+
+        public SegmentType type() {
+            return type;
+        }
+
+        public String literal() {
+            return literal;
+        }
+
+        public Pattern pattern() {
+            return pattern;
+        }
+
+        public List<String> names() {
+            return names;
+        }
+    }
+
+    private final String template;
+    private final boolean absolute;
+    private final boolean trailingSlash;
+    private final boolean optionalTrailingSlash;
+    private final List<Segment> segments;
+    private final List<String> names;
+
+    private UriTemplate(String template) {
+        this.template = template;
+
+        String base = template;
+        this.optionalTrailingSlash = base.endsWith(OPTIONAL_TRAILING_SLASH);
+        if(this.optionalTrailingSlash) {
+            base = base.substring(0, base.length() - OPTIONAL_TRAILING_SLASH.length());
+        }
+        this.absolute = base.startsWith("/");
+        if(this.absolute) {
+            base = base.substring(1);
+        }
+        this.trailingSlash = base.endsWith("/");
+        if(this.trailingSlash) {
+            base = base.substring(0, base.length() - 1);
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        if(! base.isEmpty()) {
+            for(int from = 0 ; ; ) {
+                int next = base.indexOf('/', from);
+                segments.add(parseSegment(base.substring(from, next == -1 ? base.length() : next), names));
+                if(next == -1) break;
+                from = next + 1;
+            }
+        }
+        this.segments = Collections.unmodifiableList(segments);
+        this.names = Collections.unmodifiableList(names);
+    }
+
+    static private Segment parseSegment(String segment, List<String> names) {
+        if(segment.indexOf('{') == -1) {
+            return new Segment(SegmentType.LITERAL, segment, null, Collections.emptyList());
+        }
+
+        Matcher matcher = VARIABLE.matcher(segment);
+        if(matcher.matches()) {
+            names.add(matcher.group(1));
+            return new Segment(SegmentType.VARIABLE, null, null, Collections.singletonList(matcher.group(1)));
+        }
+
+        List<String> segmentNames = new ArrayList<>();
+        StringBuilder regex = new StringBuilder();
+        int last = 0;
+        matcher.reset();
+        while(matcher.find()) {
+            if(matcher.start() > last) {
+                regex.append(Pattern.quote(segment.substring(last, matcher.start())));
+            }
+            regex.append("([^/]*)");
+            segmentNames.add(matcher.group(1));
+            last = matcher.end();
+        }
+        if(last < segment.length()) {
+            regex.append(Pattern.quote(segment.substring(last)));
+        }
+        names.addAll(segmentNames);
+        return new Segment(SegmentType.PATTERN, null, Pattern.compile(regex.toString()), segmentNames);
+    }
+
+    public String template() {
+        return template;
+    }
+
+    public List<Segment> segments() {
+        return segments;
+    }
+
+    /**
+     * @return variable names, in the order they appear in the template (a name may appear more than once).
+     */
+    public List<String> names() {
+        return names;
+    }
+
+    public boolean matches(String path) {
+        return this.captures(path) != null;
+    }
+
+    /**
+     * @return a mutable map holding, for each variable, the values extracted from the path. When the path
+     * doesn't match, variables are mapped to empty lists.
+     */
+    public Map<String, List<String>> parameters(String path) {
+        Map<String, List<String>> result = new TreeMap<>();
+        for (String name : this.names) {
+            result.putIfAbsent(name, new LinkedList<>());
+        }
+
+        String[] captures = this.captures(path);
+        if(captures != null) {
+            for (int i = 0; i < captures.length; i++) {
+                result.get(this.names.get(i)).add(captures[i]);
+            }
+        }
+        return result;
+    }
+
+    private String[] captures(String path) {
+        if(path == null) return null;
+
+        String[] captures = this.captures(path, path.length());
+        if(captures == null && this.optionalTrailingSlash && path.endsWith("/")) {
+            captures = this.captures(path, path.length() - 1);
+        }
+        return captures;
+    }
+
+    private String[] captures(String path, int end) {
+        int start = 0;
+        if(this.absolute) {
+            if(end < 1 || path.charAt(0) != '/') return null;
+            start = 1;
+        }
+        if(this.trailingSlash) {
+            if(end <= start || path.charAt(end - 1) != '/') return null;
+            end--;
+        }
+
+        String[] captures = new String[this.names.size()];
+        if(this.segments.isEmpty()) {
+            return start == end ? captures : null;
+        }
+
+        int captured = 0;
+        int pos = start;
+        for (int i = 0; i < this.segments.size(); i++) {
+            int segmentEnd = path.indexOf('/', pos);
+            if(segmentEnd == -1 || segmentEnd > end) {
+                segmentEnd = end;
+            }
+
+            Segment segment = this.segments.get(i);
+            switch (segment.type) {
+                case LITERAL:
+                    if(segmentEnd - pos != segment.literal.length() || ! path.regionMatches(pos, segment.literal, 0, segment.literal.length())) {
+                        return null;
+                    }
+                    break;
+                case VARIABLE:
+                    captures[captured++] = path.substring(pos, segmentEnd);
+                    break;
+                case PATTERN:
+                    Matcher matcher = segment.pattern.matcher(path).region(pos, segmentEnd);
+                    if(! matcher.matches()) {
+                        return null;
+                    }
+                    for (int group = 1; group <= matcher.groupCount(); group++) {
+                        captures[captured++] = matcher.group(group);
+                    }
+                    break;
+            }
+
+            if(i < this.segments.size() - 1) {
+                if(segmentEnd >= end) return null;
+                pos = segmentEnd + 1;
+            } else if(segmentEnd != end) {
+                return null;
+            }
+        }
+        return captures;
+    }
+
+    @Override
+    public String toString() {
+        return "UriTemplate{" + template + '}';
+    }
+}
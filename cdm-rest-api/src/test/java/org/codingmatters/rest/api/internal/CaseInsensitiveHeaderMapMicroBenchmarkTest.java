@@ -0,0 +1,61 @@
+package org.codingmatters.rest.api.internal;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compares lookup time and allocation of the case insensitive maps, on a typical set of request headers looked up
+ * the way generated processors do.
+ */
+@Ignore
+public class CaseInsensitiveHeaderMapMicroBenchmarkTest {
+
+    static private final String[] HEADERS = {"Host", "User-Agent", "Accept", "Accept-Encoding", "Content-Type", "Content-Length", "Authorization", "X-Request-Id", "x-custom-param"};
+    static private final String[] LOOKUPS = {"x-custom-param", "X-Custom-Param", "content-type", "Authorization", "missing"};
+    static private final int ITERATIONS = 10_000_000;
+
+    @Test
+    public void headerMap() throws Exception {
+        this.run("HeaderMap", HeaderMap::new);
+    }
+
+    @Test
+    public void caseInsensitiveHeaderMap() throws Exception {
+        this.run("CaseInsensitiveHeaderMap", CaseInsensitiveHeaderMap::new);
+    }
+
+    private void run(String name, Supplier<Map<String, List<String>>> factory) {
+        Map<String, List<String>> map = factory.get();
+        for (String header : HEADERS) {
+            map.put(header, Arrays.asList("value"));
+        }
+
+        long found = this.lookups(map, ITERATIONS / 10);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long start = System.nanoTime();
+        found += this.lookups(map, ITERATIONS);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+
+        System.out.printf("%-26s - %.2f ns/lookup - %.2f bytes/lookup (%d)\n",
+                name, (double) elapsed / (ITERATIONS * LOOKUPS.length), (double) allocated / (ITERATIONS * LOOKUPS.length), found);
+    }
+
+    private long lookups(Map<String, List<String>> map, int iterations) {
+        long found = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (String lookup : LOOKUPS) {
+                if(map.get(lookup) != null) found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,78 @@
+package org.codingmatters.rest.api.internal;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CaseInsensitiveHeaderMapTest {
+
+    @Test
+    public void givenHeaderStoredInUpperCase__whenGettingInLowerCase__thenValueRetrieved() throws Exception {
+        CaseInsensitiveHeaderMap actual = new CaseInsensitiveHeaderMap();
+        actual.put("KEY", Arrays.asList("value"));
+
+        assertThat(actual.get("key"), contains("value"));
+        assertThat(actual.get("Key"), contains("value"));
+        assertThat(actual.containsKey("kEy"), is(true));
+    }
+
+    @Test
+    public void givenHeaderStoredWithMixedCase__whenListingKeys__thenKeysAreLowerCase() throws Exception {
+        CaseInsensitiveHeaderMap actual = new CaseInsensitiveHeaderMap();
+        actual.put("X-Custom", Arrays.asList("value"));
+        actual.put("Content-Type", Arrays.asList("text/plain"));
+
+        assertThat(actual.keySet(), containsInAnyOrder("x-custom", "content-type"));
+    }
+
+    @Test
+    public void givenCommonHeaderName__whenStored__thenKeyIsInterned() throws Exception {
+        CaseInsensitiveHeaderMap actual = new CaseInsensitiveHeaderMap();
+        actual.put(new String("Content-Type"), Arrays.asList("text/plain"));
+
+        assertThat(actual.keySet().iterator().next(), is(sameInstance("content-type")));
+    }
+
+    @Test
+    public void givenSameNameWithDifferentCase__whenPut__thenValueIsReplaced() throws Exception {
+        CaseInsensitiveHeaderMap actual = new CaseInsensitiveHeaderMap();
+        actual.put("key", Arrays.asList("v1"));
+        actual.put("KEY", Arrays.asList("v2"));
+
+        assertThat(actual.size(), is(1));
+        assertThat(actual.get("key"), contains("v2"));
+    }
+
+    @Test
+    public void givenManyHeaders__whenResized__thenAllRetrievable_andRemovable() throws Exception {
+        CaseInsensitiveHeaderMap actual = new CaseInsensitiveHeaderMap();
+        for (int i = 0; i < 100; i++) {
+            actual.put("Header-" + i, Arrays.asList("" + i));
+        }
+
+        assertThat(actual.size(), is(100));
+        for (int i = 0; i < 100; i++) {
+            assertThat(actual.get("HEADER-" + i), contains("" + i));
+        }
+
+        actual.keySet().removeIf(key -> key.endsWith("0"));
+        assertThat(actual.size(), is(90));
+        assertThat(actual.remove("header-11"), contains("11"));
+        assertThat(actual.containsKey("header-11"), is(false));
+    }
+
+    @Test
+    public void givenMapDefaultMethods__whenUsed__thenCaseInsensitive() throws Exception {
+        CaseInsensitiveHeaderMap actual = new CaseInsensitiveHeaderMap();
+        actual.computeIfAbsent("Accept", k -> new ArrayList<>()).add("a");
+        actual.putIfAbsent("ACCEPT", new ArrayList<>());
+        actual.get("accept").add("b");
+
+        assertThat(actual.get("accept"), contains("a", "b"));
+        assertThat(actual.getOrDefault("missing", Collections.emptyList()), is(empty()));
+        assertThat(actual, is(Collections.singletonMap("accept", Arrays.asList("a", "b"))));
+    }
+}
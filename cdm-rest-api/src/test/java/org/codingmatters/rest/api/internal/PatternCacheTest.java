@@ -0,0 +1,36 @@
+package org.codingmatters.rest.api.internal;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class PatternCacheTest {
+
+    @Test
+    public void givenRegexAlreadyCompiled__whenGettingAgain__thenSamePatternIsReturned() throws Exception {
+        PatternCache cache = new PatternCache(10);
+
+        assertThat(cache.get("/a/[^/]+"), is(sameInstance(cache.get("/a/[^/]+"))));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void givenFullCache__whenCompilingNewRegex__thenSizeStaysBounded() throws Exception {
+        PatternCache cache = new PatternCache(3);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get("/a/" + i).matcher("/a/" + i).matches(), is(true));
+        }
+
+        assertThat(cache.size(), is(lessThanOrEqualTo(3)));
+    }
+
+    @Test
+    public void givenZeroMaxSize__whenGetting__thenNothingIsCached() throws Exception {
+        PatternCache cache = new PatternCache(0);
+
+        assertThat(cache.get("/a").matcher("/a").matches(), is(true));
+        assertThat(cache.size(), is(0));
+    }
+}
@@ -0,0 +1,106 @@
+package org.codingmatters.rest.api.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class WeightedLruCacheTest {
+
+    private final WeightedLruCache<String, String> cache = new WeightedLruCache<>(10, 16, String::length);
+
+    @Test
+    public void givenRoom__whenPut__thenValueIsCached_andWeighted() throws Exception {
+        assertThat(this.cache.put("a", "123"), is(true));
+
+        assertThat(this.cache.get("a"), is("123"));
+        assertThat(this.cache.weight(), is(3L));
+    }
+
+    @Test
+    public void givenValueHeavierThanMax__whenPut__thenRejected() throws Exception {
+        assertThat(this.cache.put("a", "12345678901"), is(false));
+
+        assertThat(this.cache.get("a"), is(nullValue()));
+        assertThat(this.cache.weight(), is(0L));
+    }
+
+    @Test
+    public void givenFull__whenFrequentKeyIsPut__thenLeastRecentlyUsedIsEvicted() throws Exception {
+        this.cache.put("a", "12345");
+        this.cache.put("b", "12345");
+        this.cache.get("b");
+
+        this.cache.get("c");
+        this.cache.get("c");
+        assertThat(this.cache.put("c", "12345"), is(true));
+
+        assertThat(this.cache.get("a"), is(nullValue()));
+        assertThat(this.cache.get("b"), is("12345"));
+        assertThat(this.cache.get("c"), is("12345"));
+        assertThat(this.cache.evictions(), is(1L));
+    }
+
+    @Test
+    public void givenFull__whenOneOffKeyIsPut__thenNotAdmitted() throws Exception {
+        this.cache.get("a");
+        this.cache.put("a", "12345");
+        this.cache.get("a");
+        this.cache.get("b");
+        this.cache.put("b", "12345");
+        this.cache.get("b");
+
+        assertThat(this.cache.put("once", "12345"), is(false));
+
+        assertThat(this.cache.get("a"), is("12345"));
+        assertThat(this.cache.get("b"), is("12345"));
+    }
+
+    @Test
+    public void givenCachedValue__whenReplaced__thenWeightIsUpdated() throws Exception {
+        this.cache.put("a", "12345");
+        this.cache.put("a", "12");
+
+        assertThat(this.cache.get("a"), is("12"));
+        assertThat(this.cache.weight(), is(2L));
+        assertThat(this.cache.size(), is(1));
+    }
+
+    @Test
+    public void givenConcurrentReadsAndWrites__whenDone__thenWeightStaysBounded_andReadsSeeCachedEntries() throws Exception {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>(1000, 64, String::length);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    String key = "k" + ((i * 31 + seed) % 200);
+                    if(cache.get(key) == null) {
+                        cache.put(key, "value-" + key);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(cache.weight() <= 1000, is(true));
+        int cached = 0;
+        for (int i = 0; i < 200; i++) {
+            String value = cache.get("k" + i);
+            if(value != null) {
+                assertThat(value, is("value-k" + i));
+                cached++;
+            }
+        }
+        assertThat(cached, is(cache.size()));
+    }
+}
@@ -0,0 +1,49 @@
+package org.codingmatters.rest.api.metrics;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class HistogramTest {
+
+    private final Histogram histogram = new Histogram(10, 100, 1000);
+
+    @Test
+    public void givenValues__whenRecorded__thenCountedInBucketWithInclusiveUpperBound() throws Exception {
+        this.histogram.record(10);
+        this.histogram.record(11);
+        this.histogram.record(1000);
+        this.histogram.record(1001);
+
+        assertThat(this.histogram.counts(), is(new long[] {1, 1, 1, 1}));
+        assertThat(this.histogram.count(), is(4L));
+        assertThat(this.histogram.sum(), is(2022L));
+    }
+
+    @Test
+    public void givenValues__whenQuantile__thenUpperBoundOfBucketHoldingTheRank() throws Exception {
+        for (int i = 0; i < 90; i++) {
+            this.histogram.record(5);
+        }
+        for (int i = 0; i < 10; i++) {
+            this.histogram.record(500);
+        }
+
+        assertThat(this.histogram.quantile(0.5), is(10L));
+        assertThat(this.histogram.quantile(0.9), is(10L));
+        assertThat(this.histogram.quantile(0.99), is(1000L));
+    }
+
+    @Test
+    public void givenValueAboveLastBound__whenQuantile__thenMaxValue() throws Exception {
+        this.histogram.record(5000);
+
+        assertThat(this.histogram.quantile(0.5), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void givenNoValue__whenQuantile__thenZero() throws Exception {
+        assertThat(this.histogram.quantile(0.5), is(0L));
+    }
+}
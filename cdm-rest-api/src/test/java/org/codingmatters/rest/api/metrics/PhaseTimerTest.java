@@ -0,0 +1,95 @@
+package org.codingmatters.rest.api.metrics;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class PhaseTimerTest {
+
+    private final AtomicReference<PhaseTimer> completed = new AtomicReference<>();
+    private final PhaseListener listener = this.completed::set;
+
+    @Test
+    public void givenLaps__whenDone__thenElapsedTimeAccountedToEachPhase() throws Exception {
+        PhaseTimer timer = this.listener.start("GET /a");
+        Thread.sleep(10);
+        timer.lap(PhaseTimer.Phase.PARAMETERS);
+        Thread.sleep(20);
+        timer.lap(PhaseTimer.Phase.HANDLER);
+        timer.done();
+
+        assertThat(this.completed.get(), is(sameInstance(timer)));
+        assertThat(timer.route(), is("GET /a"));
+        assertThat(timer.duration(PhaseTimer.Phase.PARAMETERS), is(greaterThanOrEqualTo(10_000_000L)));
+        assertThat(timer.duration(PhaseTimer.Phase.HANDLER), is(greaterThanOrEqualTo(20_000_000L)));
+        assertThat(timer.total(), is(greaterThanOrEqualTo(30_000_000L)));
+    }
+
+    @Test
+    public void givenTimedPayload__whenReadDuringParsing__thenReadTimeAccountedToBodyRead() throws Exception {
+        PhaseTimer timer = this.listener.start("POST /a");
+        try(InputStream payload = timer.timed(new SlowInputStream(new byte[] {1, 2, 3}, 10))) {
+            while(payload.read() != -1) {
+                Thread.sleep(5);
+            }
+        }
+        timer.lap(PhaseTimer.Phase.BODY_PARSING);
+        timer.done();
+
+        assertThat(timer.duration(PhaseTimer.Phase.BODY_READ), is(greaterThanOrEqualTo(40_000_000L)));
+        assertThat(timer.duration(PhaseTimer.Phase.BODY_PARSING), is(greaterThanOrEqualTo(15_000_000L)));
+        assertThat(timer.total(), is(greaterThanOrEqualTo(timer.duration(PhaseTimer.Phase.BODY_READ) + timer.duration(PhaseTimer.Phase.BODY_PARSING))));
+    }
+
+    @Test
+    public void givenNoListener__whenTiming__thenNothingIsRecorded() throws Exception {
+        PhaseTimer timer = PhaseListener.NONE.start("GET /a");
+        InputStream in = new ByteArrayInputStream(new byte[0]);
+
+        assertThat(timer.timed(in), is(sameInstance(in)));
+        timer.lap(PhaseTimer.Phase.HANDLER);
+        timer.done();
+        assertThat(timer.duration(PhaseTimer.Phase.HANDLER), is(0L));
+        assertThat(timer.total(), is(0L));
+    }
+
+    @Test
+    public void givenSlowRequestLog__whenBreakdown__thenAllPhasesAreListed() throws Exception {
+        PhaseTimer timer = this.listener.start("GET /a");
+        timer.lap(PhaseTimer.Phase.HANDLER);
+        timer.done();
+
+        assertThat(SlowRequestLog.breakdown(timer), allOf(
+                startsWith("slow request GET /a took "),
+                containsString(" body_read="),
+                containsString(" body_parsing="),
+                containsString(" parameters="),
+                containsString(" handler="),
+                containsString(" response_writing=")
+        ));
+    }
+
+    static private class SlowInputStream extends ByteArrayInputStream {
+        private final long delay;
+
+        SlowInputStream(byte[] buf, long delay) {
+            super(buf);
+            this.delay = delay;
+        }
+
+        @Override
+        public synchronized int read() {
+            try {
+                Thread.sleep(this.delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.read();
+        }
+    }
+}
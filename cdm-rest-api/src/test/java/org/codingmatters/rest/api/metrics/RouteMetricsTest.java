@@ -0,0 +1,61 @@
+package org.codingmatters.rest.api.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class RouteMetricsTest {
+
+    @Test
+    public void givenRecordedRequests__whenReadingRoute__thenStatusesAreCountedByCode() throws Exception {
+        RouteMetrics metrics = new RouteMetrics();
+        metrics.route("GET /a").record(TimeUnit.MILLISECONDS.toNanos(3), 0, 100, 200);
+        metrics.route("GET /a").record(TimeUnit.MILLISECONDS.toNanos(7), 0, 100, 200);
+        metrics.route("GET /a").record(TimeUnit.MILLISECONDS.toNanos(1), 0, 10, 404);
+
+        assertThat(metrics.routes().keySet(), contains("GET /a"));
+        assertThat(metrics.route("GET /a").latency().count(), is(3L));
+        assertThat(metrics.route("GET /a").responseSizes().sum(), is(210L));
+        assertThat(metrics.route("GET /a").statuses().get(200), is(2L));
+        assertThat(metrics.route("GET /a").statuses().get(404), is(1L));
+    }
+
+    @Test
+    public void givenUnexpectedStatus__whenRecorded__thenCountedAsZero() throws Exception {
+        RouteMetrics metrics = new RouteMetrics();
+        metrics.route("GET /a").record(1, 0, 0, 999);
+
+        assertThat(metrics.route("GET /a").statuses().get(0), is(1L));
+    }
+
+    @Test
+    public void givenRecordedRequest__whenWritingPrometheusText__thenHistogramsAreCumulativeAndInSeconds() throws Exception {
+        RouteMetrics metrics = new RouteMetrics();
+        metrics.route("GET /a").record(TimeUnit.MILLISECONDS.toNanos(3), 12, 100, 200);
+
+        StringBuilder text = new StringBuilder();
+        metrics.writePrometheus(text);
+
+        assertThat(text.toString(), containsString("cdm_http_request_duration_seconds_bucket{route=\"GET /a\",le=\"0.0025\"} 0\n"));
+        assertThat(text.toString(), containsString("cdm_http_request_duration_seconds_bucket{route=\"GET /a\",le=\"0.005\"} 1\n"));
+        assertThat(text.toString(), containsString("cdm_http_request_duration_seconds_bucket{route=\"GET /a\",le=\"+Inf\"} 1\n"));
+        assertThat(text.toString(), containsString("cdm_http_request_duration_seconds_sum{route=\"GET /a\"} 0.003\n"));
+        assertThat(text.toString(), containsString("cdm_http_request_size_bytes_sum{route=\"GET /a\"} 12\n"));
+        assertThat(text.toString(), containsString("cdm_http_response_size_bytes_count{route=\"GET /a\"} 1\n"));
+        assertThat(text.toString(), containsString("cdm_http_responses_total{route=\"GET /a\",status=\"200\"} 1\n"));
+    }
+
+    @Test
+    public void givenRouteNameWithQuotes__whenWritingPrometheusText__thenLabelIsEscaped() throws Exception {
+        RouteMetrics metrics = new RouteMetrics();
+        metrics.route("GET /\"a\"").record(1, 0, 0, 200);
+
+        StringBuilder text = new StringBuilder();
+        metrics.writePrometheus(text);
+
+        assertThat(text.toString(), containsString("route=\"GET /\\\"a\\\"\""));
+    }
+}
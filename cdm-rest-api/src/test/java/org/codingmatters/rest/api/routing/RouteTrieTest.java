@@ -0,0 +1,107 @@
+package org.codingmatters.rest.api.routing;
+
+import org.codingmatters.rest.api.RequestDelegate;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class RouteTrieTest {
+
+    private final RouteTrie<String> routes = RouteTrie.<String>builder()
+            .route("/api", RequestDelegate.Method.GET, "root")
+            .route("/api/child", RequestDelegate.Method.GET, "child")
+            .route("/api/{param}", RequestDelegate.Method.GET, "param")
+            .route("/api/{param}", RequestDelegate.Method.POST, "param-post")
+            .route("/api/{param}/another/{param2}", RequestDelegate.Method.GET, "two-params")
+            .route("/api/{param}/another-one/{param}", RequestDelegate.Method.GET, "array-param")
+            .route("/api/files/{name}.json", RequestDelegate.Method.GET, "file")
+            .build();
+
+    @Test
+    public void givenLiteralRoute__whenPathMatches__thenTargetFound_andNoUriParameters() throws Exception {
+        RouteTrie.Match<String> match = this.routes.match(RequestDelegate.Method.GET, "/api/child");
+
+        assertThat(match.target(), is("child"));
+        assertThat(match.uriParameters().size(), is(0));
+    }
+
+    @Test
+    public void givenRoute__whenPathHasTrailingSlash__thenTargetFound() throws Exception {
+        assertThat(this.routes.match(RequestDelegate.Method.GET, "/api/").target(), is("root"));
+        assertThat(this.routes.match(RequestDelegate.Method.GET, "/api").target(), is("root"));
+        assertThat(this.routes.match(RequestDelegate.Method.GET, "/api/child/").target(), is("child"));
+    }
+
+    @Test
+    public void givenRoute__whenPathHasTwoTrailingSlashes__thenNoMatch() throws Exception {
+        assertThat(this.routes.match(RequestDelegate.Method.GET, "/api/child//"), is(nullValue()));
+    }
+
+    @Test
+    public void givenLiteralAndParameterRoutes__whenSegmentMatchesLiteral__thenLiteralIsPreferred() throws Exception {
+        assertThat(this.routes.match(RequestDelegate.Method.GET, "/api/child").target(), is("child"));
+        assertThat(this.routes.match(RequestDelegate.Method.GET, "/api/other").target(), is("param"));
+    }
+
+    @Test
+    public void givenLiteralAndParameterRoutes__whenLiteralHasNoRouteForMethod__thenParameterRouteIsUsed() throws Exception {
+        RouteTrie.Match<String> match = this.routes.match(RequestDelegate.Method.POST, "/api/child");
+
+        assertThat(match.target(), is("param-post"));
+        assertThat(match.uriParameters().get("param"), contains("child"));
+    }
+
+    @Test
+    public void givenParameterRoutes__whenPathMatches__thenUriParametersAreExtracted() throws Exception {
+        RouteTrie.Match<String> match = this.routes.match(RequestDelegate.Method.GET, "/api/val/another/val2");
+
+        assertThat(match.target(), is("two-params"));
+        assertThat(match.uriParameters().size(), is(2));
+        assertThat(match.uriParameters().get("param"), contains("val"));
+        assertThat(match.uriParameters().get("param2"), contains("val2"));
+    }
+
+    @Test
+    public void givenRepeatedParameter__whenPathMatches__thenValuesAreListed() throws Exception {
+        RouteTrie.Match<String> match = this.routes.match(RequestDelegate.Method.GET, "/api/val/another-one/val2");
+
+        assertThat(match.target(), is("array-param"));
+        assertThat(match.uriParameters().get("param"), contains("val", "val2"));
+    }
+
+    @Test
+    public void givenPartialSegmentParameter__whenPathMatches__thenUriParameterIsExtracted() throws Exception {
+        RouteTrie.Match<String> match = this.routes.match(RequestDelegate.Method.GET, "/api/files/report.json");
+
+        assertThat(match.target(), is("file"));
+        assertThat(match.uriParameters().get("name"), contains("report"));
+    }
+
+    @Test
+    public void givenParameterRoute__whenSegmentIsEmpty__thenNoMatch() throws Exception {
+        assertThat(this.routes.match(RequestDelegate.Method.GET, "/api//another/val2"), is(nullValue()));
+    }
+
+    @Test
+    public void whenMethodIsNotRouted__thenNoMatch() throws Exception {
+        assertThat(this.routes.match(RequestDelegate.Method.DELETE, "/api/child"), is(nullValue()));
+        assertThat(this.routes.match(null, "/api/child"), is(nullValue()));
+    }
+
+    @Test
+    public void whenPathIsNotRouted__thenNoMatch() throws Exception {
+        assertThat(this.routes.match(RequestDelegate.Method.GET, "/other"), is(nullValue()));
+        assertThat(this.routes.match(RequestDelegate.Method.GET, "/api/val/unknown"), is(nullValue()));
+    }
+
+    @Test
+    public void givenEmptyTemplate__whenRootIsRequested__thenTargetFound() throws Exception {
+        RouteTrie<String> routes = RouteTrie.<String>builder()
+                .route("", RequestDelegate.Method.GET, "root")
+                .build();
+
+        assertThat(routes.match(RequestDelegate.Method.GET, "/").target(), is("root"));
+        assertThat(routes.match(RequestDelegate.Method.GET, "").target(), is("root"));
+    }
+}
@@ -0,0 +1,93 @@
+package org.codingmatters.rest.api.routing;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class UriTemplateTest {
+
+    @Test
+    public void givenLiteralTemplate__whenPathIsEqual__thenMatches_andNoParameters() throws Exception {
+        UriTemplate template = UriTemplate.compile("/start/end");
+
+        assertThat(template.matches("/start/end"), is(true));
+        assertThat(template.matches("/start/end/"), is(false));
+        assertThat(template.matches("/start"), is(false));
+        assertThat(template.parameters("/start/end").size(), is(0));
+    }
+
+    @Test
+    public void givenVariables__whenPathMatches__thenValuesAreExtracted() throws Exception {
+        Map<String, List<String>> parameters = UriTemplate.compile("/start/{p1}/middle/{p2}/end").parameters("/start/v1/middle/v2/end");
+
+        assertThat(parameters.size(), is(2));
+        assertThat(parameters.get("p1"), contains("v1"));
+        assertThat(parameters.get("p2"), contains("v2"));
+    }
+
+    @Test
+    public void givenRepeatedVariable__whenPathMatches__thenValuesAreListedInOrder() throws Exception {
+        Map<String, List<String>> parameters = UriTemplate.compile("/{p}/middle/{p}").parameters("/v1/middle/v2");
+
+        assertThat(parameters.size(), is(1));
+        assertThat(parameters.get("p"), contains("v1", "v2"));
+    }
+
+    @Test
+    public void givenVariables__whenPathDoesNotMatch__thenVariablesAreEmpty() throws Exception {
+        Map<String, List<String>> parameters = UriTemplate.compile("/blop/{p}").parameters("/start/value");
+
+        assertThat(parameters.size(), is(1));
+        assertThat(parameters.get("p"), is(empty()));
+    }
+
+    @Test
+    public void givenOptionalTrailingSlash__whenPathHasOrHasNotTrailingSlash__thenMatches() throws Exception {
+        UriTemplate template = UriTemplate.compile("/start/{p}/?");
+
+        assertThat(template.parameters("/start/value").get("p"), contains("value"));
+        assertThat(template.parameters("/start/value/").get("p"), contains("value"));
+        assertThat(template.matches("/start/value//"), is(false));
+    }
+
+    @Test
+    public void givenRootTemplates__whenMatchingRoot__thenSlashRulesApply() throws Exception {
+        assertThat(UriTemplate.compile("/").matches("/"), is(true));
+        assertThat(UriTemplate.compile("/").matches(""), is(false));
+        assertThat(UriTemplate.compile("/?").matches("/"), is(true));
+        assertThat(UriTemplate.compile("/?").matches(""), is(true));
+    }
+
+    @Test
+    public void givenVariable__whenSegmentIsEmpty__thenEmptyValueIsExtracted() throws Exception {
+        assertThat(UriTemplate.compile("/start/{p}").parameters("/start/").get("p"), contains(""));
+    }
+
+    @Test
+    public void givenPartialSegmentVariable__whenPathMatches__thenValueIsExtracted() throws Exception {
+        UriTemplate template = UriTemplate.compile("/files/{name}.json");
+
+        assertThat(template.parameters("/files/report.v2.json").get("name"), contains("report.v2"));
+        assertThat(template.matches("/files/report.xml"), is(false));
+    }
+
+    @Test
+    public void givenTemplate__whenParsed__thenSegmentsAreTyped() throws Exception {
+        UriTemplate template = UriTemplate.compile("/start/{p}/{name}.json");
+
+        assertThat(template.segments().size(), is(3));
+        assertThat(template.segments().get(0).type(), is(UriTemplate.SegmentType.LITERAL));
+        assertThat(template.segments().get(1).type(), is(UriTemplate.SegmentType.VARIABLE));
+        assertThat(template.segments().get(2).type(), is(UriTemplate.SegmentType.PATTERN));
+        assertThat(template.names(), contains("p", "name"));
+    }
+
+    @Test
+    public void givenCompiledTemplate__whenCompiledAgain__thenCachedInstanceIsReused() throws Exception {
+        assertThat(UriTemplate.compiled("/cached/{p}"), is(sameInstance(UriTemplate.compiled("/cached/{p}"))));
+    }
+}
@@ -10,6 +10,7 @@ import org.codingmatters.rest.api.client.ResponseDelegate;
 import org.codingmatters.rest.api.client.UrlProvider;
 import org.codingmatters.rest.io.Content;
 import org.codingmatters.rest.io.headers.HeaderEncodingHandler;
+import org.codingmatters.rest.io.jfr.Jfr;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -39,17 +40,13 @@ public class BaseOkHttpRequester implements Requester {
     @Override
     public ResponseDelegate get() throws IOException {
         Request request = this.prepareRequestBuilder().get().build();
-        try (Response response = this.client.execute(request)) {
-            return new OkHttpResponseDelegate(response);
-        }
+        return this.execute(request, null);
     }
 
     @Override
     public ResponseDelegate head() throws IOException {
         Request request = this.prepareRequestBuilder().head().build();
-        try (Response response = this.client.execute(request)) {
-            return new OkHttpResponseDelegate(response);
-        }
+        return this.execute(request, null);
     }
 
     public ResponseDelegate post(String contentType, byte[] body) throws IOException {
@@ -63,8 +60,8 @@ public class BaseOkHttpRequester implements Requester {
         }
         File temporaryFile = body.asTemporaryFile();
         Request request = this.prepareRequestBuilder().post(this.prepareBody(contentType, temporaryFile)).build();
-        try (Response response = this.client.execute(request)) {
-            return new OkHttpResponseDelegate(response);
+        try {
+            return this.execute(request, temporaryFile);
         } finally {
             temporaryFile.delete();
         }
@@ -87,8 +84,8 @@ public class BaseOkHttpRequester implements Requester {
         }
         File temporaryFile = body.asTemporaryFile();
         Request request = this.prepareRequestBuilder().put(this.prepareBody(contentType, temporaryFile)).build();
-        try (Response response = this.client.execute(request)) {
-            return new OkHttpResponseDelegate(response);
+        try {
+            return this.execute(request, temporaryFile);
         } finally {
             temporaryFile.delete();
         }
@@ -106,8 +103,8 @@ public class BaseOkHttpRequester implements Requester {
         }
         File temporaryFile = body.asTemporaryFile();
         Request request = this.prepareRequestBuilder().patch(this.prepareBody(contentType, temporaryFile)).build();
-        try (Response response = this.client.execute(request)) {
-            return new OkHttpResponseDelegate(response);
+        try {
+            return this.execute(request, temporaryFile);
         } finally {
             temporaryFile.delete();
         }
@@ -116,9 +113,7 @@ public class BaseOkHttpRequester implements Requester {
     @Override
     public ResponseDelegate delete() throws IOException {
         Request request = this.prepareRequestBuilder().delete().build();
-        try (Response response = this.client.execute(request)) {
-            return new OkHttpResponseDelegate(response);
-        }
+        return this.execute(request, null);
     }
 
     @Override
@@ -133,8 +128,8 @@ public class BaseOkHttpRequester implements Requester {
         }
         File temporaryFile = body.asTemporaryFile();
         Request request = this.prepareRequestBuilder().delete(this.prepareBody(contentType, temporaryFile)).build();
-        try (Response response = this.client.execute(request)) {
-            return new OkHttpResponseDelegate(response);
+        try {
+            return this.execute(request, temporaryFile);
         } finally {
             temporaryFile.delete();
         }
@@ -210,6 +205,22 @@ public class BaseOkHttpRequester implements Requester {
     }
 
 
+    /**
+     * @param body the request body file, null when none
+     */
+    private ResponseDelegate execute(Request request, File body) throws IOException {
+        ClientRequestEvent event = Jfr.available() ? ClientRequestEvent.start() : null;
+        OkHttpResponseDelegate result = null;
+        try (Response response = this.client.execute(request)) {
+            result = new OkHttpResponseDelegate(response);
+            return result;
+        } finally {
+            if(event != null) {
+                event.end(request, body, result);
+            }
+        }
+    }
+
     private Request.Builder prepareRequestBuilder() throws UnsupportedEncodingException, IOException {
         String baseUrl = this.urlProvider.baseUrl();
         String path = this.path();
@@ -0,0 +1,65 @@
+package org.codingmatters.rest.api.client.okhttp;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import okhttp3.Request;
+import org.codingmatters.rest.io.jfr.Jfr;
+
+import java.io.File;
+
+@Name("org.codingmatters.rest.ClientRequest")
+@Label("HTTP Client Request")
+@Description("Request sent by BaseOkHttpRequester, until its response body is received")
+@Category({"Codingmatters", "HTTP"})
+public class ClientRequestEvent extends Event {
+
+    static private final EventType TYPE = EventType.getEventType(ClientRequestEvent.class);
+
+    /**
+     * @return a started event, null when the event is not recorded. Only call when {@link Jfr#available()}.
+     */
+    static public ClientRequestEvent start() {
+        if(! TYPE.isEnabled()) return null;
+        ClientRequestEvent event = new ClientRequestEvent();
+        event.begin();
+        return event;
+    }
+
+    @Label("Method")
+    private String method;
+
+    @Label("URL")
+    @Description("Requested URL, without query string")
+    private String url;
+
+    @Label("Status")
+    @Description("Response status, -1 when the request failed")
+    private int status = -1;
+
+    @Label("Request Bytes")
+    @DataAmount
+    private long requestBytes;
+
+    @Label("Response Bytes")
+    @DataAmount
+    private long responseBytes;
+
+    public void end(Request request, File body, OkHttpResponseDelegate response) {
+        this.end();
+        if(this.shouldCommit()) {
+            this.method = request.method();
+            this.url = request.url().newBuilder().query(null).build().toString();
+            this.requestBytes = body != null ? body.length() : 0L;
+            if(response != null) {
+                this.status = response.code();
+                this.responseBytes = response.bodySize();
+            }
+            this.commit();
+        }
+    }
+}
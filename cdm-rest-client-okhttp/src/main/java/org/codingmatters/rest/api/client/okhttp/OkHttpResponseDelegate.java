@@ -41,6 +41,10 @@ public class OkHttpResponseDelegate implements ResponseDelegate {
         return this.code;
     }
 
+    long bodySize() {
+        return this.bodyFile.get().length();
+    }
+
     @Override
     public byte[] body() throws IOException {
         try(InputStream in = this.bodyFile.inputStream() ; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
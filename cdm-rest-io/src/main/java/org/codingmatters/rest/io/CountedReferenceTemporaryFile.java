@@ -1,5 +1,8 @@
 package org.codingmatters.rest.io;
 
+import org.codingmatters.rest.io.jfr.Jfr;
+import org.codingmatters.rest.io.jfr.TemporaryFileEvent;
+
 import java.io.*;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -13,9 +16,13 @@ public class CountedReferenceTemporaryFile implements AutoCloseable {
     private final ReferenceCounter referenceCounter;
 
     public static CountedReferenceTemporaryFile create() throws IOException {
+        TemporaryFileEvent event = Jfr.available() ? TemporaryFileEvent.start() : null;
         File file = new File(tmpDir(), UUID.randomUUID().toString());
         file.getParentFile().mkdirs();
         file.createNewFile();
+        if(event != null) {
+            event.end(file);
+        }
         ReferenceCounter referenceCounter = new ReferenceCounter(file);
         referenceCounter.increment();
         return new CountedReferenceTemporaryFile(file, referenceCounter);
@@ -19,9 +19,8 @@ public class ReferenceCounter {
         this.count.incrementAndGet();
     }
 
-    public synchronized void decrement() {
-        this.count.decrementAndGet();
-        if(this.count.get() <= 0) {
+    public void decrement() {
+        if(this.count.decrementAndGet() <= 0) {
             this.temporary.delete();
         }
     }
@@ -0,0 +1,29 @@
+package org.codingmatters.rest.io.jfr;
+
+/**
+ * Tells whether the Flight Recorder API is available. Event classes are only touched when it is, so that the library
+ * still runs on JVMs without the jdk.jfr module. Events are never emitted when the {@link #DISABLED_PROP} system
+ * property is true.
+ */
+public final class Jfr {
+
+    static public final String DISABLED_PROP = Jfr.class.getName() + ".disabled";
+
+    static private final boolean AVAILABLE = ! Boolean.getBoolean(DISABLED_PROP) && present();
+
+    static public boolean available() {
+        return AVAILABLE;
+    }
+
+    static private boolean present() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private Jfr() {
+    }
+}
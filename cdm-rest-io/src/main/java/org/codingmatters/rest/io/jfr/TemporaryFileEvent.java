@@ -0,0 +1,40 @@
+package org.codingmatters.rest.io.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.io.File;
+
+@Name("org.codingmatters.rest.TemporaryFile")
+@Label("Temporary File")
+@Description("Temporary file created to spill content to disk")
+@Category({"Codingmatters", "HTTP"})
+public class TemporaryFileEvent extends Event {
+
+    static private final EventType TYPE = EventType.getEventType(TemporaryFileEvent.class);
+
+    /**
+     * @return a started event, null when the event is not recorded. Only call when {@link Jfr#available()}.
+     */
+    static public TemporaryFileEvent start() {
+        if(! TYPE.isEnabled()) return null;
+        TemporaryFileEvent event = new TemporaryFileEvent();
+        event.begin();
+        return event;
+    }
+
+    @Label("Path")
+    private String path;
+
+    public void end(File file) {
+        this.end();
+        if(this.shouldCommit()) {
+            this.path = file.getPath();
+            this.commit();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.codingmatters.rest.io.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.codingmatters.rest.io.CountedReferenceTemporaryFile;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TemporaryFileEventTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void givenRecording__whenTemporaryFileCreated__thenEventRecordedWithPath() throws Exception {
+        Assume.assumeTrue(Jfr.available());
+
+        File file;
+        File dump = this.tmpDir.newFile("recording.jfr");
+        try(Recording recording = new Recording()) {
+            recording.enable("org.codingmatters.rest.TemporaryFile");
+            recording.start();
+            try(CountedReferenceTemporaryFile temporaryFile = CountedReferenceTemporaryFile.create()) {
+                file = temporaryFile.get();
+            }
+            recording.stop();
+            recording.dump(dump.toPath());
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump.toPath());
+        assertEquals(1, events.size());
+        assertEquals(file.getPath(), events.get(0).getString("path"));
+    }
+}
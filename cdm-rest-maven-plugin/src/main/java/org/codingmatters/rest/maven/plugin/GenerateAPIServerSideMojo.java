@@ -25,6 +25,9 @@ public class GenerateAPIServerSideMojo extends AbstractGenerateAPIMojo {
     @Parameter(defaultValue = "${basedir}/target/generated-sources/")
     private File outputDirectory;
 
+    @Parameter(alias = "route-metrics", defaultValue = "false")
+    private boolean routeMetrics;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         RamlModelResult ramlModel = this.resolveRamlModel();
@@ -33,7 +36,8 @@ public class GenerateAPIServerSideMojo extends AbstractGenerateAPIMojo {
                     this.destinationPackage,
                     this.typesPackage + ".types",
                     this.typesPackage,
-                    this.outputDirectory
+                    this.outputDirectory,
+                    this.routeMetrics
             ).generate(ramlModel);
         } catch (IOException e) {
             throw new MojoExecutionException("error generating processor from raml model", e);
@@ -10,7 +10,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class TestRequestDeleguate implements RequestDelegate {
 
@@ -113,7 +112,7 @@ public class TestRequestDeleguate implements RequestDelegate {
 
     @Override
     public Matcher pathMatcher(String regex) {
-        return Pattern.compile(regex).matcher(this.requestPath);
+        return RequestDelegate.compiledPattern(regex).matcher(this.requestPath);
     }
 
     @Override
@@ -40,7 +40,7 @@ public class UndertowResource extends ExternalResource {
         try(ServerSocket socket = new ServerSocket(0)) {
             port = socket.getLocalPort();
         }
-        this.server = Undertow.builder()
+        this.server = this.undertowBuilder
                 .addHttpListener(port, "localhost")
                 .setHandler(this.handler)
                 .build();
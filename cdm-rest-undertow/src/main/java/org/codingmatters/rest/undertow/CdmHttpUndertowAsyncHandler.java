@@ -0,0 +1,76 @@
+package org.codingmatters.rest.undertow;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.SameThreadExecutor;
+import org.codingmatters.rest.api.AsyncProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Runs the synchronous part of an AsyncProcessor (typically reading the request) on a worker thread, then releases
+ * the worker : the exchange is ended when the processor's stage completes.
+ */
+public class CdmHttpUndertowAsyncHandler implements HttpHandler {
+    static private final Logger log = LoggerFactory.getLogger(CdmHttpUndertowAsyncHandler.class);
+
+    private final AsyncProcessor processor;
+
+    public CdmHttpUndertowAsyncHandler(AsyncProcessor processor) {
+        this.processor = processor;
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (exchange.isInIoThread()) {
+            exchange.dispatch(this);
+            return;
+        }
+
+        UndertowRequestDelegate requestDelegate = new UndertowRequestDelegate(exchange);
+        UndertowResponseDelegate responseDelegate = new UndertowResponseDelegate(exchange);
+
+        CompletionStage<Void> stage;
+        try {
+            stage = this.processor.process(requestDelegate, responseDelegate);
+        } catch (RuntimeException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            stage = failed;
+        }
+
+        CompletionStage<Void> processing = stage;
+        exchange.dispatch(SameThreadExecutor.INSTANCE, () -> processing.whenComplete(
+                (result, error) -> this.complete(exchange, requestDelegate, responseDelegate, error)
+        ));
+    }
+
+    private void complete(HttpServerExchange exchange, UndertowRequestDelegate requestDelegate, UndertowResponseDelegate responseDelegate, Throwable error) {
+        if(exchange.isInIoThread()) {
+            exchange.getConnection().getWorker().execute(() -> this.complete(exchange, requestDelegate, responseDelegate, error));
+            return;
+        }
+
+        if(error != null) {
+            log.error("error while processing request " + exchange.getRequestPath(), error);
+            responseDelegate.abort();
+            if(! exchange.isResponseStarted()) {
+                exchange.setStatusCode(500);
+            }
+        }
+        try {
+            responseDelegate.close();
+        } catch (Exception e) {
+            log.error("error closing response delegate", e);
+        }
+        try {
+            requestDelegate.close();
+        } catch (Exception e) {
+            log.error("error closing request delegate", e);
+        }
+        exchange.endExchange();
+    }
+}
@@ -2,33 +2,217 @@ package org.codingmatters.rest.undertow;
 
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
 import org.codingmatters.rest.api.Processor;
+import org.codingmatters.rest.io.jfr.Jfr;
+import org.codingmatters.rest.undertow.internal.AdaptiveConcurrencyLimiter;
+import org.codingmatters.rest.undertow.internal.ConcurrencyLimits;
+import org.codingmatters.rest.undertow.internal.QueueDeadlines;
+import org.codingmatters.rest.undertow.internal.RequestBody;
+import org.codingmatters.rest.undertow.internal.RequestBodyReceiver;
+import org.codingmatters.rest.undertow.internal.ServerRequestEvent;
+import org.codingmatters.rest.undertow.internal.VirtualThreads;
+
+import java.util.concurrent.Executor;
 
 /**
  * Created by nelt on 4/27/17.
  */
 public class CdmHttpUndertowHandler implements HttpHandler {
 
+    /**
+     * Runs each exchange on its own virtual thread instead of the XNIO worker pool (requires a JDK with virtual threads).
+     */
+    static public CdmHttpUndertowHandler onVirtualThreads(Processor processor) {
+        return new CdmHttpUndertowHandler(processor, VirtualThreads.executor());
+    }
+
+    static public Builder builder(Processor processor) {
+        return new Builder(processor);
+    }
+
+    static public class Builder {
+        private final Processor processor;
+        private Executor executor;
+        private RequestBodyReceiver bodyReceiver;
+        private ConcurrencyLimits concurrencyLimits;
+        private QueueDeadlines queueDeadlines;
+
+        private Builder(Processor processor) {
+            this.processor = processor;
+        }
+
+        /**
+         * @see CdmHttpUndertowHandler#CdmHttpUndertowHandler(Processor, Executor)
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @see CdmHttpUndertowHandler#CdmHttpUndertowHandler(Processor, Executor, RequestBodyReceiver)
+         */
+        public Builder bodyReceiver(RequestBodyReceiver bodyReceiver) {
+            this.bodyReceiver = bodyReceiver;
+            return this;
+        }
+
+        /**
+         * Limits in flight requests, excess requests are answered with a 503 on the IO thread, before being
+         * dispatched.
+         */
+        public Builder concurrencyLimits(ConcurrencyLimits concurrencyLimits) {
+            this.concurrencyLimits = concurrencyLimits;
+            return this;
+        }
+
+        /**
+         * Requests that waited too long to be processed are answered with a 503 instead of being processed.
+         */
+        public Builder queueDeadlines(QueueDeadlines queueDeadlines) {
+            this.queueDeadlines = queueDeadlines;
+            return this;
+        }
+
+        public CdmHttpUndertowHandler build() {
+            return new CdmHttpUndertowHandler(this.processor, this.executor, this.bodyReceiver, this.concurrencyLimits, this.queueDeadlines);
+        }
+    }
+
+    static private final AttachmentKey<Boolean> ADMITTED = AttachmentKey.create(Boolean.class);
+    static private final AttachmentKey<Long> RECEIVED = AttachmentKey.create(Long.class);
+    static private final AttachmentKey<Long> ENQUEUED = AttachmentKey.create(Long.class);
+
     private final Processor processor;
+    private final Executor executor;
+    private final RequestBodyReceiver bodyReceiver;
+    private final ConcurrencyLimits concurrencyLimits;
+    private final QueueDeadlines queueDeadlines;
 
     public CdmHttpUndertowHandler(Processor processor) {
+        this(processor, null);
+    }
+
+    /**
+     * @param executor executor the exchanges are dispatched to, the XNIO worker pool when null.
+     */
+    public CdmHttpUndertowHandler(Processor processor, Executor executor) {
+        this(processor, executor, null);
+    }
+
+    /**
+     * @param bodyReceiver when not null, request bodies are received on the IO thread and exchanges are only
+     *                     dispatched once their body is complete.
+     */
+    public CdmHttpUndertowHandler(Processor processor, Executor executor, RequestBodyReceiver bodyReceiver) {
+        this(processor, executor, bodyReceiver, null, null);
+    }
+
+    private CdmHttpUndertowHandler(Processor processor, Executor executor, RequestBodyReceiver bodyReceiver, ConcurrencyLimits concurrencyLimits, QueueDeadlines queueDeadlines) {
         this.processor = processor;
+        this.executor = executor;
+        this.bodyReceiver = bodyReceiver;
+        this.concurrencyLimits = concurrencyLimits;
+        this.queueDeadlines = queueDeadlines;
     }
 
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if(Jfr.available() && ServerRequestEvent.enabled()) {
+            ServerRequestEvent.start(exchange);
+        }
+        if(this.queueDeadlines != null && exchange.getAttachment(RECEIVED) == null) {
+            exchange.putAttachment(RECEIVED, System.nanoTime());
+        }
+        if(this.concurrencyLimits != null && exchange.getAttachment(ADMITTED) == null && ! this.admitted(exchange)) {
+            return;
+        }
+
         if (exchange.isInIoThread()) {
-            exchange.dispatch(this);
+            if(this.bodyReceiver != null) {
+                this.bodyReceiver.receive(exchange, (ex, body) -> this.dispatch(ex, dispatched -> this.process(dispatched, body)));
+            } else {
+                this.dispatch(exchange, this);
+            }
             return;
         }
 
+        this.process(exchange, null);
+    }
+
+    /**
+     * The limiter's permit is released, and the request's RTT sampled, when the exchange completes, whatever the
+     * way it completes.
+     */
+    private boolean admitted(HttpServerExchange exchange) {
+        exchange.putAttachment(ADMITTED, Boolean.TRUE);
+        AdaptiveConcurrencyLimiter limiter = this.concurrencyLimits.limiter(exchange.getRequestPath());
+        if(! limiter.tryAcquire()) {
+            exchange.setStatusCode(503);
+            exchange.endExchange();
+            return false;
+        }
+        long start = System.nanoTime();
+        exchange.addExchangeCompleteListener((completed, next) -> {
+            limiter.release(System.nanoTime() - start);
+            next.proceed();
+        });
+        return true;
+    }
+
+    public ConcurrencyLimits concurrencyLimits() {
+        return this.concurrencyLimits;
+    }
+
+    public QueueDeadlines queueDeadlines() {
+        return this.queueDeadlines;
+    }
+
+    private void dispatch(HttpServerExchange exchange, HttpHandler handler) {
+        if(this.queueDeadlines != null) {
+            exchange.putAttachment(ENQUEUED, System.nanoTime());
+        }
+        if(this.executor != null) {
+            exchange.dispatch(this.executor, handler);
+        } else {
+            exchange.dispatch(handler);
+        }
+    }
+
+    private void process(HttpServerExchange exchange, RequestBody body) throws Exception {
+        if(this.queueDeadlines != null && this.expired(exchange)) {
+            if(body != null) {
+                body.close();
+            }
+            exchange.setStatusCode(503);
+            exchange.endExchange();
+            return;
+        }
         try(
-                UndertowRequestDelegate requestDelegate = new UndertowRequestDelegate(exchange);
+                UndertowRequestDelegate requestDelegate = new UndertowRequestDelegate(exchange, body);
                 UndertowResponseDelegate responseDelegate = new UndertowResponseDelegate(exchange)) {
-            this.processor.process(requestDelegate, responseDelegate);
+            try {
+                this.processor.process(requestDelegate, responseDelegate);
+            } catch (Exception e) {
+                responseDelegate.abort();
+                throw e;
+            }
         }
         exchange.endExchange();
 
 //        Content.cleanupTemporaryFiles();
     }
+
+    private boolean expired(HttpServerExchange exchange) {
+        long now = System.nanoTime();
+        Long received = exchange.getAttachment(RECEIVED);
+        Long enqueued = exchange.getAttachment(ENQUEUED);
+        return this.queueDeadlines.expired(
+                received != null ? received : now,
+                enqueued != null ? enqueued : now,
+                now,
+                this.queueDeadlines.deadlineHeader() != null ? exchange.getRequestHeaders().getFirst(this.queueDeadlines.deadlineHeader()) : null
+        );
+    }
 }
@@ -0,0 +1,150 @@
+package org.codingmatters.rest.undertow;
+
+import io.undertow.Undertow;
+import io.undertow.UndertowOptions;
+import io.undertow.server.HttpHandler;
+import org.codingmatters.rest.api.Processor;
+import org.codingmatters.rest.undertow.internal.ConcurrencyLimits;
+import org.codingmatters.rest.undertow.internal.QueueDeadlines;
+import org.codingmatters.rest.undertow.internal.RequestBodyReceiver;
+import org.xnio.Options;
+
+import javax.net.ssl.SSLContext;
+import java.util.concurrent.Executor;
+
+/**
+ * Undertow server mounting a processor (typically a generated API processor) through a {@link CdmHttpUndertowHandler}.
+ *
+ * HTTP/2 is enabled by default : h2c (upgrade or prior knowledge) on http listeners, ALPN negotiated on https ones.
+ * IO threads default to the number of available cores, worker threads to 8 per IO thread.
+ */
+public class CdmHttpUndertowServer {
+
+    static public Builder builder(Processor processor) {
+        return new Builder(processor);
+    }
+
+    static public class Builder {
+        private final Processor processor;
+
+        private final Undertow.Builder undertow = Undertow.builder();
+        private boolean http2 = true;
+        private int ioThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        private Integer workerThreads = null;
+        private int bufferSize = 16 * 1024;
+        private int backlog = 1024;
+        private Executor executor = null;
+        private RequestBodyReceiver bodyReceiver = null;
+        private ConcurrencyLimits concurrencyLimits = null;
+        private QueueDeadlines queueDeadlines = null;
+
+        private Builder(Processor processor) {
+            this.processor = processor;
+        }
+
+        public Builder http(int port, String host) {
+            this.undertow.addHttpListener(port, host);
+            return this;
+        }
+
+        public Builder https(int port, String host, SSLContext sslContext) {
+            this.undertow.addHttpsListener(port, host, sslContext);
+            return this;
+        }
+
+        public Builder http2(boolean enabled) {
+            this.http2 = enabled;
+            return this;
+        }
+
+        public Builder ioThreads(int ioThreads) {
+            this.ioThreads = ioThreads;
+            return this;
+        }
+
+        public Builder workerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+            return this;
+        }
+
+        public Builder bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        public Builder backlog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        /**
+         * @see CdmHttpUndertowHandler#CdmHttpUndertowHandler(Processor, Executor, RequestBodyReceiver)
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @see CdmHttpUndertowHandler#CdmHttpUndertowHandler(Processor, Executor, RequestBodyReceiver)
+         */
+        public Builder bodyReceiver(RequestBodyReceiver bodyReceiver) {
+            this.bodyReceiver = bodyReceiver;
+            return this;
+        }
+
+        /**
+         * @see CdmHttpUndertowHandler.Builder#concurrencyLimits(ConcurrencyLimits)
+         */
+        public Builder concurrencyLimits(ConcurrencyLimits concurrencyLimits) {
+            this.concurrencyLimits = concurrencyLimits;
+            return this;
+        }
+
+        /**
+         * @see CdmHttpUndertowHandler.Builder#queueDeadlines(QueueDeadlines)
+         */
+        public Builder queueDeadlines(QueueDeadlines queueDeadlines) {
+            this.queueDeadlines = queueDeadlines;
+            return this;
+        }
+
+        public CdmHttpUndertowServer build() {
+            HttpHandler handler = CdmHttpUndertowHandler.builder(this.processor)
+                    .executor(this.executor)
+                    .bodyReceiver(this.bodyReceiver)
+                    .concurrencyLimits(this.concurrencyLimits)
+                    .queueDeadlines(this.queueDeadlines)
+                    .build();
+            Undertow server = this.undertow
+                    .setIoThreads(this.ioThreads)
+                    .setWorkerThreads(this.workerThreads != null ? this.workerThreads : this.ioThreads * 8)
+                    .setBufferSize(this.bufferSize)
+                    .setDirectBuffers(true)
+                    .setSocketOption(Options.BACKLOG, this.backlog)
+                    .setServerOption(UndertowOptions.ENABLE_HTTP2, this.http2)
+                    .setHandler(handler)
+                    .build();
+            return new CdmHttpUndertowServer(server);
+        }
+    }
+
+    private final Undertow server;
+
+    private CdmHttpUndertowServer(Undertow server) {
+        this.server = server;
+    }
+
+    public CdmHttpUndertowServer start() {
+        this.server.start();
+        return this;
+    }
+
+    public void stop() {
+        this.server.stop();
+    }
+
+    public Undertow undertow() {
+        return server;
+    }
+}
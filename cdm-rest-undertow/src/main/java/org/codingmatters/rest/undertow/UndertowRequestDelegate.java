@@ -1,42 +1,66 @@
 package org.codingmatters.rest.undertow;
 
 import io.undertow.server.HttpServerExchange;
-import io.undertow.util.HeaderValues;
 import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
 import org.codingmatters.rest.api.RequestDelegate;
-import org.codingmatters.rest.api.internal.UriParameterProcessor;
-import org.codingmatters.rest.io.headers.HeaderEncodingHandler;
+import org.codingmatters.rest.api.routing.UriTemplate;
+import org.codingmatters.rest.undertow.internal.ByteArrayRequestBody;
+import org.codingmatters.rest.undertow.internal.HeadersView;
+import org.codingmatters.rest.undertow.internal.QueryParametersView;
 import org.codingmatters.rest.undertow.internal.RequestBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
+import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Created by nelt on 4/27/17.
+ *
+ * Lazily computed values are safely published : the delegate can be read from several threads. As for the maps it
+ * returns, writes concurrent to other accesses must be synchronized by the caller.
  */
 public class UndertowRequestDelegate implements RequestDelegate {
 
     static private final Logger log = LoggerFactory.getLogger(UndertowRequestDelegate.class);
 
+    static private final Map<HttpString, Method> METHODS = new HashMap<>();
+    static {
+        for (Method method : Method.values()) {
+            METHODS.put(new HttpString(method.name()), method);
+        }
+    }
+
     private final HttpServerExchange exchange;
     private Map<String, Map<String, List<String>>> uriParamsCache = new HashMap<>();
-    private Map<String, List<String>> queryParamsCache = null;
-    private Map<String, List<String>> headersCache = null;
+    private volatile Map<String, List<String>> queryParamsView = null;
+    private volatile Map<String, List<String>> headersView = null;
+    private volatile Method method = null;
+    private volatile String clientAddress = null;
 
     private final AtomicReference<RequestBody> body = new AtomicReference<>(null);
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean streamed = false;
 
     public UndertowRequestDelegate(HttpServerExchange exchange) {
+        this(exchange, null);
+    }
+
+    /**
+     * @param body an already received body, when null the body is read from the exchange when first requested.
+     */
+    public UndertowRequestDelegate(HttpServerExchange exchange, RequestBody body) {
         this.exchange = exchange;
+        this.body.set(body);
     }
 
     @Override
@@ -46,40 +70,68 @@ public class UndertowRequestDelegate implements RequestDelegate {
 
     @Override
     public Matcher pathMatcher(String regex) {
-        log.debug("req={} ; rel={} ; res={}",
-                this.exchange.getRequestPath(),
-                this.exchange.getRelativePath(),
-                this.exchange.getResolvedPath()
-        );
-        return Pattern.compile(regex).matcher(this.path());
+        return this.pathMatcher(RequestDelegate.compiledPattern(regex));
     }
 
     @Override
-    public Method method() {
-        String methodString = exchange.getRequestMethod().toString().toUpperCase();
-        for (Method method : Method.values()) {
-            if(method.name().equals(methodString)) {
-                return method;
-            }
+    public Matcher pathMatcher(Pattern pattern) {
+        if(log.isTraceEnabled()) {
+            log.trace("req={} ; rel={} ; res={}",
+                    this.exchange.getRequestPath(),
+                    this.exchange.getRelativePath(),
+                    this.exchange.getResolvedPath()
+            );
         }
+        return pattern.matcher(this.path());
+    }
 
-        return Method.UNIMPLEMENTED;
+    @Override
+    public Method method() {
+        if(this.method == null) {
+            this.method = METHODS.getOrDefault(this.exchange.getRequestMethod(), Method.UNIMPLEMENTED);
+        }
+        return this.method;
     }
 
     @Override
     public InputStream payload() throws IOException {
-        synchronized (this.body) {
+        this.lock.lock();
+        try {
             if(this.body.get() == null) {
-                if(! this.exchange.isBlocking()) {
-                    this.exchange.startBlocking();
+                if(this.streamed) {
+                    log.warn("payload requested after being streamed, returning an empty payload");
+                    this.body.set(new ByteArrayRequestBody(new byte[0]));
+                } else {
+                    if (!this.exchange.isBlocking()) {
+                        this.exchange.startBlocking();
+                    }
+                    this.body.set(RequestBody.from(exchange));
                 }
-                this.body.set(RequestBody.from(exchange));
             }
+        } finally {
+            this.lock.unlock();
         }
 
         return this.body.get().inputStream();
     }
 
+    @Override
+    public InputStream payloadStream() throws IOException {
+        this.lock.lock();
+        try {
+            if(this.body.get() != null || this.streamed) {
+                return this.payload();
+            }
+            this.streamed = true;
+            if(! this.exchange.isBlocking()) {
+                this.exchange.startBlocking();
+            }
+            return this.exchange.getInputStream();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
     @Override
     public String contentType() {
         return this.exchange.getRequestHeaders().getFirst(Headers.CONTENT_TYPE);
@@ -100,43 +152,57 @@ public class UndertowRequestDelegate implements RequestDelegate {
         );
     }
 
+    @Override
+    public String clientAddress() {
+        if(this.clientAddress == null) {
+            InetSocketAddress source = this.exchange.getSourceAddress();
+            if(source != null) {
+                this.clientAddress = source.getAddress() != null ? source.getAddress().getHostAddress() : source.getHostString();
+            }
+        }
+        return this.clientAddress;
+    }
+
     @Override
     public Map<String, List<String>> uriParameters(String pathExpression) {
         if(! this.uriParamsCache.containsKey(pathExpression)) {
-            this.uriParamsCache.put(pathExpression, new UriParameterProcessor(this).process(pathExpression));
+            this.uriParamsCache.put(pathExpression, UriTemplate.compiled(pathExpression).parameters(this.path()));
         }
         return this.uriParamsCache.get(pathExpression);
     }
 
     @Override
-    public synchronized Map<String, List<String>> queryParameters() {
-        if(this.queryParamsCache == null) {
-            this.queryParamsCache = RequestDelegate.createHeaderMap();
-            for (String name : this.exchange.getQueryParameters().keySet()) {
-                if (this.exchange.getQueryParameters().get(name) != null) {
-                    this.queryParamsCache.put(name, new ArrayList<>(this.exchange.getQueryParameters().get(name)));
+    public Map<String, List<String>> queryParameters() {
+        Map<String, List<String>> result = this.queryParamsView;
+        if(result == null) {
+            this.lock.lock();
+            try {
+                if(this.queryParamsView == null) {
+                    this.queryParamsView = new QueryParametersView(this.exchange.getQueryParameters());
                 }
+                result = this.queryParamsView;
+            } finally {
+                this.lock.unlock();
             }
         }
-        return this.queryParamsCache;
+        return result;
     }
 
     @Override
-    public synchronized Map<String, List<String>> headers() {
-        if(this.headersCache == null) {
-            this.headersCache = RequestDelegate.createHeaderMap();
-            for (HeaderValues headerValues : this.exchange.getRequestHeaders()) {
-                String headerName = headerValues.getHeaderName().toString();
-                List<String> collect = new ArrayList<>( headerValues );
-                if( headerName.endsWith( "*" )){
-                    headerName = headerName.substring( 0, headerName.length()-1 );
-                    collect = headerValues.stream().map( HeaderEncodingHandler::decodeHeader ).collect( Collectors.toList() );
+    public Map<String, List<String>> headers() {
+        Map<String, List<String>> result = this.headersView;
+        if(result == null) {
+            this.lock.lock();
+            try {
+                if(this.headersView == null) {
+                    this.headersView = new HeadersView(this.exchange.getRequestHeaders());
                 }
-                this.headersCache.putIfAbsent( headerName, new ArrayList<>() );
-                this.headersCache.get( headerName ).addAll( collect );
+                result = this.headersView;
+            } finally {
+                this.lock.unlock();
             }
         }
-        return this.headersCache;
+        return result;
     }
 
     @Override
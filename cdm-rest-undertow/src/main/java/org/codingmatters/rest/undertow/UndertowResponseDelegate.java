@@ -1,5 +1,8 @@
 package org.codingmatters.rest.undertow;
 
+import io.undertow.io.IoCallback;
+import io.undertow.io.Sender;
+import io.undertow.io.UndertowOutputStream;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
@@ -7,19 +10,42 @@ import org.codingmatters.rest.api.ResponseDelegate;
 import org.codingmatters.rest.io.headers.HeaderEncodingHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xnio.IoUtils;
 
-import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 
 /**
  * Created by nelt on 4/27/17.
+ *
+ * A byte array, buffer or file payload is held until the delegate is closed, then sent with its Content-Length.
+ * Writing more payload before closing sends the held one first, and the body is then streamed without a declared
+ * length.
  */
 public class UndertowResponseDelegate implements ResponseDelegate {
     static private final Logger log = LoggerFactory.getLogger(UndertowResponseDelegate.class);
 
+    static private final IoCallback LOGGING_CALLBACK = new IoCallback() {
+        @Override
+        public void onComplete(HttpServerExchange exchange, Sender sender) {
+        }
+
+        @Override
+        public void onException(HttpServerExchange exchange, Sender sender, IOException exception) {
+            log.error("error writing response body", exception);
+        }
+    };
+
     private final HttpServerExchange exchange;
+    private ByteBuffer pending;
+    private FileInputStream pendingFile;
+    private boolean streamed = false;
+    private boolean aborted = false;
 
     public UndertowResponseDelegate(HttpServerExchange exchange) {
         this.exchange = exchange;
@@ -66,12 +92,28 @@ public class UndertowResponseDelegate implements ResponseDelegate {
 
     @Override
     public ResponseDelegate payload(byte [] bytes) {
-        return this.payload(new ByteArrayInputStream(bytes));
+        return this.payload(bytes != null ? ByteBuffer.wrap(bytes) : null);
+    }
+
+    @Override
+    public ResponseDelegate payload(ByteBuffer buffer) {
+        if(buffer == null) return this;
+
+        if(this.nothingWritten()) {
+            this.pending = buffer;
+        } else {
+            this.startStreaming();
+            this.exchange.getResponseSender().send(buffer, LOGGING_CALLBACK);
+        }
+        return this;
     }
 
     @Override
     public ResponseDelegate payload(InputStream in) {
-        this.exchange.startBlocking();
+        if(in instanceof FileInputStream) {
+            return this.payload((FileInputStream) in);
+        }
+        this.startStreaming();
         try {
             byte [] buffer = new byte[1024];
             for(int read = in.read(buffer) ; read != -1 ; read = in.read(buffer)) {
@@ -83,7 +125,93 @@ public class UndertowResponseDelegate implements ResponseDelegate {
         return this;
     }
 
+    /**
+     * File backed streams (FileContent, temporary files) are transferred from their channel, letting the
+     * connection use sendfile rather than copying through heap buffers. The stream is fully consumed, hence closed.
+     */
+    private ResponseDelegate payload(FileInputStream in) {
+        if(this.nothingWritten()) {
+            this.pendingFile = in;
+        } else {
+            this.startStreaming();
+            this.transfer(in, false);
+        }
+        return this;
+    }
+
+    private void transfer(FileInputStream in, boolean withLength) {
+        try(FileInputStream stream = in) {
+            FileChannel channel = stream.getChannel();
+            if(withLength) {
+                this.exchange.setResponseContentLength(channel.size() - channel.position());
+            }
+            this.exchange.getResponseSender().transferFrom(channel, LOGGING_CALLBACK);
+        } catch (IOException e) {
+            log.error("error writing response body", e);
+        }
+    }
+
+    private boolean nothingWritten() {
+        return this.pending == null && this.pendingFile == null && ! this.streamed;
+    }
+
+    @Override
+    public OutputStream payloadStream() {
+        this.startStreaming();
+        return this.exchange.getOutputStream();
+    }
+
+    /**
+     * Sends the held payload, if any, without declaring a length as more payload follows.
+     */
+    private void startStreaming() {
+        this.exchange.startBlocking();
+        this.streamed = true;
+        if(this.pending != null) {
+            ByteBuffer buffer = this.pending;
+            this.pending = null;
+            this.exchange.getResponseSender().send(buffer, LOGGING_CALLBACK);
+        }
+        if(this.pendingFile != null) {
+            FileInputStream in = this.pendingFile;
+            this.pendingFile = null;
+            this.transfer(in, false);
+        }
+    }
+
+    /**
+     * Processing failed : nothing held is sent anymore and, when part of the response already reached the client,
+     * the connection is closed so that the truncated payload is not taken for a complete one.
+     */
+    public void abort() {
+        this.aborted = true;
+        this.pending = null;
+        if(this.pendingFile != null) {
+            IoUtils.safeClose(this.pendingFile);
+            this.pendingFile = null;
+        }
+        if(this.exchange.isResponseStarted()) {
+            IoUtils.safeClose(this.exchange.getConnection());
+        } else if(this.streamed && this.exchange.getOutputStream() instanceof UndertowOutputStream) {
+            ((UndertowOutputStream) this.exchange.getOutputStream()).resetBuffer();
+        }
+    }
+
     @Override
     public void close() throws Exception {
+        if(this.aborted) return;
+        if(this.pending != null) {
+            ByteBuffer buffer = this.pending;
+            this.pending = null;
+            this.exchange.startBlocking();
+            this.exchange.setResponseContentLength(buffer.remaining());
+            this.exchange.getResponseSender().send(buffer, LOGGING_CALLBACK);
+        }
+        if(this.pendingFile != null) {
+            FileInputStream in = this.pendingFile;
+            this.pendingFile = null;
+            this.exchange.startBlocking();
+            this.transfer(in, true);
+        }
     }
 }
@@ -0,0 +1,111 @@
+package org.codingmatters.rest.undertow.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gradient concurrency limiter : the limit on in flight requests follows the ratio between the long term and the
+ * short term round trip times. When requests start queueing, the short term RTT rises above the long term one and
+ * the limit shrinks ; while they don't, the limit grows by its square root, leaving headroom to detect capacity.
+ *
+ * Samples are taken on request completion. Limit updates are skipped rather than waited for when another thread is
+ * already updating it.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    static public final int DEFAULT_INITIAL_LIMIT = 20;
+    static public final int DEFAULT_MIN_LIMIT = 4;
+    static public final int DEFAULT_MAX_LIMIT = 1000;
+
+    static private final double SMOOTHING = 0.2;
+    static private final double SHORT_WINDOW = 0.1;
+    static private final double LONG_WINDOW = 0.005;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private volatile double limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock updating = new ReentrantLock();
+    private double shortRtt = 0;
+    private double longRtt = 0;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * @return true when the request may be processed, it must then be {@link #release(long) released}.
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = this.inFlight.get();
+            if(current >= (int) this.limit) {
+                this.rejected.increment();
+                return false;
+            }
+        } while(! this.inFlight.compareAndSet(current, current + 1));
+        this.accepted.increment();
+        return true;
+    }
+
+    /**
+     * @param rtt the time, in nanoseconds, the request took to complete since it was acquired.
+     */
+    public void release(long rtt) {
+        int inFlight = this.inFlight.getAndDecrement();
+        if(rtt <= 0 || ! this.updating.tryLock()) return;
+        try {
+            if(this.longRtt == 0) {
+                this.shortRtt = rtt;
+                this.longRtt = rtt;
+                return;
+            }
+            this.shortRtt = this.shortRtt * (1 - SHORT_WINDOW) + rtt * SHORT_WINDOW;
+            this.longRtt = this.longRtt * (1 - LONG_WINDOW) + rtt * LONG_WINDOW;
+            if(this.longRtt / this.shortRtt > 2) {
+                // recovering from a latency spike, let the long term RTT come back down
+                this.longRtt = this.longRtt * 0.95;
+            }
+
+            double current = this.limit;
+            if(inFlight < current / 2) {
+                // application limited, samples don't tell anything about capacity
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, this.longRtt / this.shortRtt));
+            double target = current * gradient + Math.sqrt(current);
+            double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+            this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, next));
+        } finally {
+            this.updating.unlock();
+        }
+    }
+
+    public int limit() {
+        return (int) this.limit;
+    }
+
+    public int inFlight() {
+        return this.inFlight.get();
+    }
+
+    public long accepted() {
+        return this.accepted.sum();
+    }
+
+    public long rejected() {
+        return this.rejected.sum();
+    }
+}
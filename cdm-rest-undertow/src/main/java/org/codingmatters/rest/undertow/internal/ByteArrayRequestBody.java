@@ -9,6 +9,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ByteArrayRequestBody implements RequestBody {
     static private final Logger log = LoggerFactory.getLogger(UndertowRequestDelegate.class);
@@ -33,9 +34,19 @@ public class ByteArrayRequestBody implements RequestBody {
     }
 
     private final byte[] body;
+    private final RequestBodyBudget budget;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
 
     public ByteArrayRequestBody(byte[] body) {
+        this(body, null);
+    }
+
+    /**
+     * @param budget budget the body's bytes were reserved from, released on close.
+     */
+    public ByteArrayRequestBody(byte[] body, RequestBodyBudget budget) {
         this.body = body;
+        this.budget = budget;
     }
 
     @Override
@@ -44,5 +55,9 @@ public class ByteArrayRequestBody implements RequestBody {
     }
 
     @Override
-    public void close() throws Exception {}
+    public void close() throws Exception {
+        if(this.budget != null && ! this.closed.getAndSet(true)) {
+            this.budget.release(this.body.length);
+        }
+    }
 }
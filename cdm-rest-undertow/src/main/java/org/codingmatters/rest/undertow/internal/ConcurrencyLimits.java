@@ -0,0 +1,71 @@
+package org.codingmatters.rest.undertow.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency limiters by route group. A request is limited by the group with the longest path prefix matching its
+ * path, or by the default limiter when none matches.
+ */
+public class ConcurrencyLimits {
+
+    static public final String DEFAULT_GROUP = "default";
+
+    static public ConcurrencyLimits adaptive() {
+        return new ConcurrencyLimits(AdaptiveConcurrencyLimiter::new);
+    }
+
+    static public ConcurrencyLimits adaptive(int initialLimit, int minLimit, int maxLimit) {
+        return new ConcurrencyLimits(() -> new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit));
+    }
+
+    private final Supplier<AdaptiveConcurrencyLimiter> limiters;
+    private final AdaptiveConcurrencyLimiter defaultLimiter;
+    private final LinkedHashMap<String, Group> groups = new LinkedHashMap<>();
+
+    private ConcurrencyLimits(Supplier<AdaptiveConcurrencyLimiter> limiters) {
+        this.limiters = limiters;
+        this.defaultLimiter = limiters.get();
+    }
+
+    /**
+     * Requests whose path starts with the prefix get their own limiter.
+     */
+    public ConcurrencyLimits group(String name, String pathPrefix) {
+        this.groups.put(name, new Group(pathPrefix, this.limiters.get()));
+        return this;
+    }
+
+    public AdaptiveConcurrencyLimiter limiter(String path) {
+        Group result = null;
+        for (Group group : this.groups.values()) {
+            if(path.startsWith(group.pathPrefix) && (result == null || group.pathPrefix.length() > result.pathPrefix.length())) {
+                result = group;
+            }
+        }
+        return result != null ? result.limiter : this.defaultLimiter;
+    }
+
+    /**
+     * @return limiters by group name, the default one being named {@link #DEFAULT_GROUP}.
+     */
+    public Map<String, AdaptiveConcurrencyLimiter> limiters() {
+        Map<String, AdaptiveConcurrencyLimiter> result = new LinkedHashMap<>();
+        result.put(DEFAULT_GROUP, this.defaultLimiter);
+        for (Map.Entry<String, Group> group : this.groups.entrySet()) {
+            result.put(group.getKey(), group.getValue().limiter);
+        }
+        return result;
+    }
+
+    static private class Group {
+        private final String pathPrefix;
+        private final AdaptiveConcurrencyLimiter limiter;
+
+        private Group(String pathPrefix, AdaptiveConcurrencyLimiter limiter) {
+            this.pathPrefix = pathPrefix;
+            this.limiter = limiter;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.codingmatters.rest.undertow.internal;
+
+import org.codingmatters.rest.api.RequestDelegate;
+
+import java.util.*;
+
+/**
+ * Case insensitive map answering reads from a lazy view, and switching to a mutable copy on the first write.
+ * Value lists of the view are read only, those of the copy are array lists.
+ *
+ * Reads are safe from several threads : the materialized view is immutable and the copy is published through a
+ * volatile field, the first write switching every reader to the copy. Writes concurrent to other accesses must be
+ * synchronized by the caller, as for any map.
+ */
+abstract class CopyOnWriteView extends AbstractMap<String, List<String>> {
+
+    private volatile Map<String, List<String>> materialized = null;
+    private volatile Map<String, List<String>> copy = null;
+
+    protected abstract List<String> lookup(String key);
+
+    /**
+     * @return all entries, in a case insensitive map.
+     */
+    protected abstract Map<String, List<String>> materialize();
+
+    @Override
+    public List<String> get(Object key) {
+        Map<String, List<String>> copy = this.copy;
+        if(copy != null) return copy.get(key);
+        return key instanceof String ? this.lookup((String) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Map<String, List<String>> copy = this.copy;
+        if(copy != null) return copy.containsKey(key);
+        return this.get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return this.read().size();
+    }
+
+    @Override
+    public Set<Entry<String, List<String>>> entrySet() {
+        return this.read().entrySet();
+    }
+
+    @Override
+    public List<String> put(String key, List<String> value) {
+        return this.write().put(key, value);
+    }
+
+    @Override
+    public List<String> remove(Object key) {
+        return this.write().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        this.write().clear();
+    }
+
+    /**
+     * Concurrent first reads may materialize the view twice, both being equal any of them can be kept.
+     */
+    private Map<String, List<String>> read() {
+        Map<String, List<String>> result = this.copy;
+        if(result != null) return result;
+        result = this.materialized;
+        if(result == null) {
+            result = Collections.unmodifiableMap(this.materialize());
+            this.materialized = result;
+        }
+        return result;
+    }
+
+    private Map<String, List<String>> write() {
+        Map<String, List<String>> result = this.copy;
+        if(result == null) {
+            synchronized (this) {
+                result = this.copy;
+                if(result == null) {
+                    result = RequestDelegate.createHeaderMap();
+                    for (Entry<String, List<String>> entry : this.read().entrySet()) {
+                        result.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+                    }
+                    this.copy = result;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package org.codingmatters.rest.undertow.internal;
+
+import io.undertow.util.HeaderMap;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.HttpString;
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.io.headers.HeaderEncodingHandler;
+
+import java.util.*;
+
+/**
+ * Case insensitive view over undertow request headers.
+ *
+ * Lookups are answered from the undertow header map, RFC 5987 encoded values (sent as name*) being decoded
+ * and appended to the plain ones on access. Iterating copies the headers once, modifying the map copies them to
+ * a mutable map, leaving the exchange's headers untouched.
+ */
+public class HeadersView extends CopyOnWriteView {
+
+    private final HeaderMap headers;
+    private Boolean hasEncoded = null;
+
+    public HeadersView(HeaderMap headers) {
+        this.headers = headers;
+    }
+
+    @Override
+    protected List<String> lookup(String key) {
+        if(key.endsWith("*")) return null;
+
+        HeaderValues plain = this.headers.get(key);
+        HeaderValues encoded = this.hasEncoded() ? this.headers.get(key + "*") : null;
+        if(encoded == null || encoded.isEmpty()) {
+            return plain == null || plain.isEmpty() ? null : Collections.unmodifiableList(plain);
+        }
+
+        List<String> result = new ArrayList<>((plain != null ? plain.size() : 0) + encoded.size());
+        if(plain != null) {
+            result.addAll(plain);
+        }
+        for (String value : encoded) {
+            result.add(HeaderEncodingHandler.decodeHeader(value));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private boolean hasEncoded() {
+        if(this.hasEncoded == null) {
+            boolean found = false;
+            for (HeaderValues values : this.headers) {
+                HttpString name = values.getHeaderName();
+                if(name.length() > 0 && name.byteAt(name.length() - 1) == '*') {
+                    found = true;
+                    break;
+                }
+            }
+            this.hasEncoded = found;
+        }
+        return this.hasEncoded;
+    }
+
+    @Override
+    protected Map<String, List<String>> materialize() {
+        Map<String, List<String>> result = RequestDelegate.createHeaderMap();
+        for (HeaderValues headerValues : this.headers) {
+            String headerName = headerValues.getHeaderName().toString();
+            if(headerName.endsWith("*")) {
+                headerName = headerName.substring(0, headerName.length() - 1);
+            }
+            if(! result.containsKey(headerName)) {
+                result.put(headerName, this.lookup(headerName));
+            }
+        }
+        return result;
+    }
+}
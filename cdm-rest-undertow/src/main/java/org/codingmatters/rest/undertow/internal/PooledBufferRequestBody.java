@@ -0,0 +1,150 @@
+package org.codingmatters.rest.undertow.internal;
+
+import io.undertow.connector.ByteBufferPool;
+import io.undertow.connector.PooledByteBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Request body stored in slabs of pooled (usually direct) buffers, the slabs are given back to the pool on close.
+ */
+public class PooledBufferRequestBody implements RequestBody {
+
+    private final List<PooledByteBuffer> slabs;
+    private final long length;
+    private final RequestBodyBudget budget;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private PooledBufferRequestBody(List<PooledByteBuffer> slabs, long length, RequestBodyBudget budget) {
+        this.slabs = slabs;
+        this.length = length;
+        this.budget = budget;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public InputStream inputStream() {
+        return new SlabsInputStream();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if(! this.closed.getAndSet(true)) {
+            for (PooledByteBuffer slab : this.slabs) {
+                slab.close();
+            }
+            if(this.budget != null) {
+                this.budget.release(this.length);
+            }
+        }
+    }
+
+    static class Writer implements AutoCloseable {
+        private final ByteBufferPool pool;
+        private final List<PooledByteBuffer> slabs = new ArrayList<>();
+        private long length = 0;
+        private boolean done = false;
+
+        Writer(ByteBufferPool pool) {
+            this.pool = pool;
+        }
+
+        void write(byte[] bytes, int offset, int count) {
+            while(count > 0) {
+                if(this.slabs.isEmpty() || ! this.current().hasRemaining()) {
+                    this.slabs.add(this.pool.allocate());
+                }
+                ByteBuffer current = this.current();
+                int written = Math.min(count, current.remaining());
+                current.put(bytes, offset, written);
+                offset += written;
+                count -= written;
+                this.length += written;
+            }
+        }
+
+        private ByteBuffer current() {
+            return this.slabs.get(this.slabs.size() - 1).getBuffer();
+        }
+
+        long length() {
+            return length;
+        }
+
+        void drainTo(OutputStream out) throws IOException {
+            byte[] buffer = new byte[1024];
+            for (PooledByteBuffer slab : this.slabs) {
+                ByteBuffer view = slab.getBuffer().duplicate();
+                view.flip();
+                while(view.hasRemaining()) {
+                    int count = Math.min(buffer.length, view.remaining());
+                    view.get(buffer, 0, count);
+                    out.write(buffer, 0, count);
+                }
+            }
+        }
+
+        PooledBufferRequestBody body(RequestBodyBudget budget) {
+            this.done = true;
+            return new PooledBufferRequestBody(this.slabs, this.length, budget);
+        }
+
+        @Override
+        public void close() {
+            if(! this.done) {
+                this.done = true;
+                for (PooledByteBuffer slab : this.slabs) {
+                    slab.close();
+                }
+                this.slabs.clear();
+            }
+        }
+    }
+
+    private class SlabsInputStream extends InputStream {
+        private int slab = -1;
+        private ByteBuffer current = null;
+
+        private ByteBuffer readable() throws IOException {
+            if(closed.get()) throw new IOException("request body closed");
+            while(this.current == null || ! this.current.hasRemaining()) {
+                if(this.slab + 1 >= slabs.size()) return null;
+                this.slab++;
+                this.current = slabs.get(this.slab).getBuffer().duplicate();
+                this.current.flip();
+            }
+            return this.current;
+        }
+
+        @Override
+        public int read() throws IOException {
+            ByteBuffer buffer = this.readable();
+            return buffer == null ? -1 : buffer.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if(len == 0) return 0;
+            ByteBuffer buffer = this.readable();
+            if(buffer == null) return -1;
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            ByteBuffer buffer = this.readable();
+            return buffer == null ? 0 : buffer.remaining();
+        }
+    }
+}
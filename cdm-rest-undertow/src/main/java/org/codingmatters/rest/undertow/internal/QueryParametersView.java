@@ -0,0 +1,71 @@
+package org.codingmatters.rest.undertow.internal;
+
+import org.codingmatters.rest.api.RequestDelegate;
+
+import java.util.*;
+
+/**
+ * Case insensitive view over undertow query parameters, values are exposed as read only list views over
+ * undertow's deques. Iterating copies the parameters once, modifying the map copies them to a mutable map.
+ */
+public class QueryParametersView extends CopyOnWriteView {
+
+    private final Map<String, Deque<String>> parameters;
+
+    public QueryParametersView(Map<String, Deque<String>> parameters) {
+        this.parameters = parameters;
+    }
+
+    @Override
+    protected List<String> lookup(String key) {
+        Deque<String> values = this.parameters.get(key);
+        if(values == null) {
+            for (Entry<String, Deque<String>> entry : this.parameters.entrySet()) {
+                if(entry.getKey().equalsIgnoreCase(key) && entry.getValue() != null) {
+                    values = entry.getValue();
+                }
+            }
+        }
+        return values != null ? new DequeList(values) : null;
+    }
+
+    @Override
+    protected Map<String, List<String>> materialize() {
+        Map<String, List<String>> result = RequestDelegate.createHeaderMap();
+        for (Entry<String, Deque<String>> entry : this.parameters.entrySet()) {
+            if(entry.getValue() != null) {
+                result.put(entry.getKey(), new DequeList(entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    static private class DequeList extends AbstractList<String> {
+        private final Deque<String> values;
+
+        private DequeList(Deque<String> values) {
+            this.values = values;
+        }
+
+        @Override
+        public String get(int index) {
+            if(index < 0 || index >= this.values.size()) throw new IndexOutOfBoundsException("index: " + index + ", size: " + this.values.size());
+            if(index == 0) return this.values.peekFirst();
+            Iterator<String> iterator = this.values.iterator();
+            for (int i = 0; i < index; i++) {
+                iterator.next();
+            }
+            return iterator.next();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return Collections.unmodifiableCollection(this.values).iterator();
+        }
+
+        @Override
+        public int size() {
+            return this.values.size();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.codingmatters.rest.undertow.internal;
+
+import org.codingmatters.rest.api.metrics.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops requests that waited too long to be processed : those that waited in the dispatch queue longer than the
+ * maximum queue wait, and those whose client deadline expired. The client deadline header holds the time, in
+ * milliseconds, the client is willing to wait for the response, counted from the request's reception.
+ */
+public class QueueDeadlines {
+
+    static public final String DEFAULT_DEADLINE_HEADER = "X-Request-Timeout";
+
+    private final long maxQueueWait;
+    private final String deadlineHeader;
+
+    private final Histogram queueWait = Histogram.latency();
+    private final LongAdder shedOnQueueWait = new LongAdder();
+    private final LongAdder shedOnDeadline = new LongAdder();
+
+    /**
+     * @param maxQueueWait maximum time, in milliseconds, a request may wait in the dispatch queue.
+     */
+    public QueueDeadlines(long maxQueueWait) {
+        this(maxQueueWait, DEFAULT_DEADLINE_HEADER);
+    }
+
+    /**
+     * @param deadlineHeader the client deadline header name, null to ignore client deadlines.
+     */
+    public QueueDeadlines(long maxQueueWait, String deadlineHeader) {
+        this.maxQueueWait = TimeUnit.MILLISECONDS.toNanos(maxQueueWait);
+        this.deadlineHeader = deadlineHeader;
+    }
+
+    public String deadlineHeader() {
+        return deadlineHeader;
+    }
+
+    /**
+     * @param received nano time the request was received at
+     * @param enqueued nano time the request was dispatched at
+     * @param now current nano time
+     * @param deadline the deadline header value, if any
+     * @return true when the request must be dropped.
+     */
+    public boolean expired(long received, long enqueued, long now, String deadline) {
+        long wait = now - enqueued;
+        this.queueWait.record(wait);
+        if(wait > this.maxQueueWait) {
+            this.shedOnQueueWait.increment();
+            return true;
+        }
+        if(deadline != null) {
+            try {
+                if(now - received > TimeUnit.MILLISECONDS.toNanos(Long.parseLong(deadline.trim()))) {
+                    this.shedOnDeadline.increment();
+                    return true;
+                }
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return queue wait durations in nanoseconds.
+     */
+    public Histogram queueWait() {
+        return this.queueWait;
+    }
+
+    public long shedOnQueueWait() {
+        return this.shedOnQueueWait.sum();
+    }
+
+    public long shedOnDeadline() {
+        return this.shedOnDeadline.sum();
+    }
+}
@@ -1,7 +1,6 @@
 package org.codingmatters.rest.undertow.internal;
 
 import io.undertow.server.HttpServerExchange;
-import io.undertow.util.HeaderValues;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -9,21 +8,13 @@ import java.io.InputStream;
 public interface RequestBody extends AutoCloseable {
 
     static RequestBody from(HttpServerExchange exchange) throws IOException {
-        if(isSmall(exchange.getRequestHeaders().get("content-length"))) {
-            return ByteArrayRequestBody.from(exchange);
-        } else {
-            return CountedReferenceTemporaryFileRequestBody.from(exchange);
-        }
+        return from(exchange, RequestBodyBudget.server());
     }
 
-    static boolean isSmall(HeaderValues contentLength) {
-        if(contentLength == null) return true;
-        try {
-            if (Integer.parseInt(contentLength.getFirst()) <= 1024) {
-                return true;
-            }
-        } catch (NumberFormatException e) {}
-        return false;
+    static RequestBody from(HttpServerExchange exchange, RequestBodyBudget budget) throws IOException {
+        try(InputStream in = exchange.getInputStream()) {
+            return budget.read(in, exchange.getRequestContentLength(), exchange.getConnection().getByteBufferPool());
+        }
     }
 
     InputStream inputStream();
@@ -0,0 +1,185 @@
+package org.codingmatters.rest.undertow.internal;
+
+import io.undertow.connector.ByteBufferPool;
+import org.codingmatters.rest.io.CountedReferenceTemporaryFile;
+import org.codingmatters.rest.io.content.ContentHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memory budget shared by in-flight request bodies.
+ *
+ * A body is kept in memory as long as it fits both the per request threshold and the server wide budget,
+ * it is spilled to a temporary file otherwise. Bodies up to the heap limit are kept in a byte array, bigger
+ * ones in pooled buffers when a pool is available. Bodies of unknown length (chunked uploads) are read in memory
+ * until they overflow, then spilled.
+ */
+public class RequestBodyBudget {
+
+    static public final String BUDGET_PROP = RequestBodyBudget.class.getName() + ".budget";
+    static public final String THRESHOLD_PROP = RequestBodyBudget.class.getName() + ".threshold";
+    static public final String HEAP_LIMIT_PROP = RequestBodyBudget.class.getName() + ".heap.limit";
+
+    static private final RequestBodyBudget server = new RequestBodyBudget(
+            Long.getLong(BUDGET_PROP, 64L * 1024 * 1024),
+            Integer.getInteger(THRESHOLD_PROP, 4 * 1024 * 1024),
+            Integer.getInteger(HEAP_LIMIT_PROP, 1024)
+    );
+
+    static public RequestBodyBudget server() {
+        return server;
+    }
+
+    private final long budget;
+    private final int threshold;
+    private final int heapLimit;
+
+    private final AtomicLong held = new AtomicLong();
+    private final LongAdder inMemoryBytes = new LongAdder();
+    private final LongAdder spilledBytes = new LongAdder();
+    private final LongAdder spills = new LongAdder();
+
+    public RequestBodyBudget(long budget, int threshold) {
+        this(budget, threshold, 1024);
+    }
+
+    public RequestBodyBudget(long budget, int threshold, int heapLimit) {
+        this.budget = budget;
+        this.threshold = threshold;
+        this.heapLimit = heapLimit;
+    }
+
+    public RequestBody read(InputStream in, long contentLength) throws IOException {
+        return this.read(in, contentLength, null);
+    }
+
+    /**
+     * @param pool when not null, bodies not known to be smaller than the heap limit are stored in pooled buffers.
+     */
+    public RequestBody read(InputStream in, long contentLength, ByteBufferPool pool) throws IOException {
+        if(contentLength > this.threshold || contentLength > this.budget) {
+            return this.spill(out -> {}, 0, in);
+        }
+        if(pool == null || (contentLength >= 0 && contentLength <= this.heapLimit)) {
+            return this.readInHeap(in, contentLength);
+        } else {
+            return this.readInPool(in, pool);
+        }
+    }
+
+    private RequestBody readInHeap(InputStream in, long contentLength) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(contentLength > 0 ? (int) contentLength : 1024);
+        byte[] buffer = new byte[1024];
+        long reserved = 0;
+        try {
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                if(out.size() + read > this.threshold || ! this.reserve(read)) {
+                    this.release(reserved);
+                    reserved = 0;
+                    out.write(buffer, 0, read);
+                    return this.spill(out::writeTo, out.size(), in);
+                }
+                reserved += read;
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            this.release(reserved);
+            throw e;
+        }
+        this.keptInMemory(out.size());
+        return new ByteArrayRequestBody(out.toByteArray(), this);
+    }
+
+    private RequestBody readInPool(InputStream in, ByteBufferPool pool) throws IOException {
+        try(RequestBodyIngestion ingestion = new RequestBodyIngestion(this, pool)) {
+            byte[] buffer = new byte[1024];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                ingestion.write(buffer, 0, read);
+            }
+            return ingestion.complete();
+        }
+    }
+
+    private RequestBody spill(Head head, long headLength, InputStream in) throws IOException {
+        CountedReferenceTemporaryFile temp = CountedReferenceTemporaryFile.create();
+        long length = headLength;
+        try(OutputStream out = temp.outputStream()) {
+            head.writeTo(out);
+            length += ContentHelper.copyStream(in, out);
+        } catch (IOException | RuntimeException e) {
+            try {
+                temp.close();
+            } catch (Exception closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+        this.spilled(length);
+        return new CountedReferenceTemporaryFileRequestBody(temp);
+    }
+
+    @FunctionalInterface
+    private interface Head {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    boolean reserve(long bytes) {
+        for(long current = this.held.get() ; current + bytes <= this.budget ; current = this.held.get()) {
+            if(this.held.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void release(long bytes) {
+        this.held.addAndGet(-bytes);
+    }
+
+    void keptInMemory(long bytes) {
+        this.inMemoryBytes.add(bytes);
+    }
+
+    void spilled(long bytes) {
+        this.spills.increment();
+        this.spilledBytes.add(bytes);
+    }
+
+    public long budget() {
+        return budget;
+    }
+
+    public int threshold() {
+        return threshold;
+    }
+
+    /**
+     * @return bytes currently held in memory by in-flight request bodies.
+     */
+    public long held() {
+        return this.held.get();
+    }
+
+    /**
+     * @return total bytes read in memory since startup.
+     */
+    public long inMemoryBytes() {
+        return this.inMemoryBytes.sum();
+    }
+
+    /**
+     * @return total bytes spilled to temporary files since startup.
+     */
+    public long spilledBytes() {
+        return this.spilledBytes.sum();
+    }
+
+    public long spills() {
+        return this.spills.sum();
+    }
+}
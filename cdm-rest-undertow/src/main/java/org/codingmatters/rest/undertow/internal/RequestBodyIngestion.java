@@ -0,0 +1,94 @@
+package org.codingmatters.rest.undertow.internal;
+
+import io.undertow.connector.ByteBufferPool;
+import org.codingmatters.rest.io.CountedReferenceTemporaryFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Incrementally stores a request body in pooled buffers, reserving memory from the budget chunk by chunk and
+ * spilling to a temporary file once the body overflows.
+ */
+class RequestBodyIngestion implements AutoCloseable {
+    static private final Logger log = LoggerFactory.getLogger(RequestBodyIngestion.class);
+
+    private final RequestBodyBudget budget;
+    private final PooledBufferRequestBody.Writer writer;
+
+    private CountedReferenceTemporaryFile temp = null;
+    private OutputStream spill = null;
+    private long spilled = 0;
+    private boolean completed = false;
+
+    RequestBodyIngestion(RequestBodyBudget budget, ByteBufferPool pool) {
+        this.budget = budget;
+        this.writer = new PooledBufferRequestBody.Writer(pool);
+    }
+
+    void write(byte[] bytes, int offset, int count) throws IOException {
+        if(! this.buffer(bytes, offset, count)) {
+            this.spill(bytes, offset, count);
+        }
+    }
+
+    /**
+     * Stores the chunk in pooled buffers, without blocking.
+     *
+     * @return false when the body overflows : the chunk was not stored, it and the following ones must be spilled.
+     */
+    boolean buffer(byte[] bytes, int offset, int count) {
+        if(this.spill == null && this.writer.length() + count <= this.budget.threshold() && this.budget.reserve(count)) {
+            this.writer.write(bytes, offset, count);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Writes the chunk to the temporary file, moving the buffered chunks there first. Blocking.
+     */
+    void spill(byte[] bytes, int offset, int count) throws IOException {
+        if(this.spill == null) {
+            this.budget.release(this.writer.length());
+            this.temp = CountedReferenceTemporaryFile.create();
+            this.spill = this.temp.outputStream();
+            this.writer.drainTo(this.spill);
+            this.spilled = this.writer.length();
+            this.writer.close();
+        }
+        this.spill.write(bytes, offset, count);
+        this.spilled += count;
+    }
+
+    RequestBody complete() throws IOException {
+        this.completed = true;
+        if(this.spill != null) {
+            this.spill.close();
+            this.budget.spilled(this.spilled);
+            return new CountedReferenceTemporaryFileRequestBody(this.temp);
+        } else {
+            this.budget.keptInMemory(this.writer.length());
+            return this.writer.body(this.budget);
+        }
+    }
+
+    @Override
+    public void close() {
+        if(this.completed) return;
+        this.completed = true;
+        if(this.spill != null) {
+            try {
+                this.spill.close();
+                this.temp.close();
+            } catch (Exception e) {
+                log.warn("failed releasing spilled request body", e);
+            }
+        } else {
+            this.budget.release(this.writer.length());
+            this.writer.close();
+        }
+    }
+}
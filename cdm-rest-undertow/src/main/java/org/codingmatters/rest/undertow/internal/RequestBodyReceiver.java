@@ -0,0 +1,265 @@
+package org.codingmatters.rest.undertow.internal;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.StatusCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.XnioExecutor;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Receives request bodies on the IO thread, without blocking, before handing them over.
+ *
+ * Bodies are stored as {@link RequestBodyBudget} would (pooled buffers, spilled to a temporary file on overflow).
+ * Bodies announced as bigger than the budget threshold are not received, they're left to be read from the worker.
+ * Once a body overflows, the temporary file is written from the worker, the IO thread only hands the chunks over.
+ * Bodies bigger than the maximum size get a 413.
+ *
+ * A client not sending anything for the idle timeout, or not done sending after the total timeout, gets a 408.
+ */
+public class RequestBodyReceiver {
+    static private final Logger log = LoggerFactory.getLogger(RequestBodyReceiver.class);
+
+    static public final String IDLE_TIMEOUT_PROP = RequestBodyReceiver.class.getName() + ".idle.timeout";
+    static public final String TOTAL_TIMEOUT_PROP = RequestBodyReceiver.class.getName() + ".total.timeout";
+    static public final String MAX_SIZE_PROP = RequestBodyReceiver.class.getName() + ".max.size";
+
+    static public final long DEFAULT_MAX_SIZE = 100 * 1024 * 1024L;
+
+    static public RequestBodyReceiver defaults() {
+        return new RequestBodyReceiver(
+                RequestBodyBudget.server(),
+                Long.getLong(IDLE_TIMEOUT_PROP, 30 * 1000L),
+                Long.getLong(TOTAL_TIMEOUT_PROP, 5 * 60 * 1000L),
+                Long.getLong(MAX_SIZE_PROP, DEFAULT_MAX_SIZE)
+        );
+    }
+
+    @FunctionalInterface
+    public interface Then {
+        /**
+         * @param body the received body, null when the body was left unread.
+         */
+        void received(HttpServerExchange exchange, RequestBody body);
+    }
+
+    private final RequestBodyBudget budget;
+    private final long idleTimeout;
+    private final long totalTimeout;
+    private final long maxSize;
+
+    /**
+     * @param idleTimeout max time, in milliseconds, between two chunks of body.
+     * @param totalTimeout max time, in milliseconds, to receive the whole body.
+     */
+    public RequestBodyReceiver(RequestBodyBudget budget, long idleTimeout, long totalTimeout) {
+        this(budget, idleTimeout, totalTimeout, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize max size, in bytes, of a received body.
+     */
+    public RequestBodyReceiver(RequestBodyBudget budget, long idleTimeout, long totalTimeout, long maxSize) {
+        this.budget = budget;
+        this.idleTimeout = idleTimeout;
+        this.totalTimeout = totalTimeout;
+        this.maxSize = maxSize;
+    }
+
+    public void receive(HttpServerExchange exchange, Then then) {
+        if(exchange.isRequestComplete()) {
+            then.received(exchange, new ByteArrayRequestBody(new byte[0]));
+            return;
+        }
+        if(exchange.getRequestContentLength() > this.budget.threshold()) {
+            then.received(exchange, null);
+            return;
+        }
+
+        Reception reception = new Reception(exchange, then);
+        reception.start();
+    }
+
+    private class Reception {
+        private final HttpServerExchange exchange;
+        private final Then then;
+        private final RequestBodyIngestion ingestion;
+
+        private XnioExecutor.Key idle = null;
+        private XnioExecutor.Key total = null;
+        private boolean done = false;
+        private long received = 0;
+        private Spill spill = null;
+
+        private Reception(HttpServerExchange exchange, Then then) {
+            this.exchange = exchange;
+            this.then = then;
+            this.ingestion = new RequestBodyIngestion(budget, exchange.getConnection().getByteBufferPool());
+        }
+
+        private void start() {
+            this.total = this.exchange.getIoThread().executeAfter(() -> this.timedOut("total"), totalTimeout, TimeUnit.MILLISECONDS);
+            this.idle = this.exchange.getIoThread().executeAfter(() -> this.timedOut("idle"), idleTimeout, TimeUnit.MILLISECONDS);
+            this.exchange.getRequestReceiver().receivePartialBytes(this::chunk, this::failed);
+        }
+
+        private void chunk(HttpServerExchange exchange, byte[] bytes, boolean last) {
+            if(this.done) return;
+            this.received += bytes.length;
+            if(this.received > maxSize) {
+                this.done = true;
+                this.cancelTimeouts();
+                this.release();
+                log.debug("request body for {} exceeds {} bytes", this.exchange.getRequestPath(), maxSize);
+                this.abort(StatusCodes.REQUEST_ENTITY_TOO_LARGE);
+                return;
+            }
+
+            if(this.spill == null && ! this.ingestion.buffer(bytes, 0, bytes.length)) {
+                this.spill = new Spill(exchange.getConnection().getWorker());
+            }
+            if(this.spill != null) {
+                // the receiver hands a new array with each chunk, it can be written later on
+                this.spill.execute(() -> {
+                    if(this.spill.failure != null) return;
+                    try {
+                        this.ingestion.spill(bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        this.spill.fail(e);
+                    }
+                });
+            }
+
+            if(last) {
+                this.done = true;
+                this.cancelTimeouts();
+                if(this.spill != null) {
+                    this.spill.execute(this::completed);
+                } else {
+                    this.completed();
+                }
+            } else {
+                this.idle.remove();
+                this.idle = exchange.getIoThread().executeAfter(() -> this.timedOut("idle"), idleTimeout, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * Runs on the IO thread, or on the worker once the body was spilled.
+         */
+        private void completed() {
+            if(this.spill != null && this.spill.failure != null) {
+                this.ingestion.close();
+                this.exchange.getIoThread().execute(() -> this.abort(StatusCodes.INTERNAL_SERVER_ERROR));
+                log.error("failed spilling request body", this.spill.failure);
+                return;
+            }
+            RequestBody body;
+            try {
+                body = this.ingestion.complete();
+            } catch (IOException e) {
+                this.ingestion.close();
+                this.exchange.getIoThread().execute(() -> this.abort(StatusCodes.INTERNAL_SERVER_ERROR));
+                log.error("failed completing request body", e);
+                return;
+            }
+            if(this.spill != null) {
+                this.exchange.getIoThread().execute(() -> this.then.received(this.exchange, body));
+            } else {
+                this.then.received(this.exchange, body);
+            }
+        }
+
+        /**
+         * Releases what was received, after the pending spill writes if any.
+         */
+        private void release() {
+            if(this.spill != null) {
+                this.spill.execute(this.ingestion::close);
+            } else {
+                this.ingestion.close();
+            }
+        }
+
+        private void failed(HttpServerExchange exchange, IOException e) {
+            if(this.done) return;
+            this.done = true;
+            this.cancelTimeouts();
+            this.release();
+            log.debug("failed receiving request body", e);
+            this.abort(StatusCodes.INTERNAL_SERVER_ERROR);
+        }
+
+        private void timedOut(String phase) {
+            if(this.done) return;
+            this.done = true;
+            this.cancelTimeouts();
+            this.release();
+            log.debug("{} timeout receiving request body for {}", phase, this.exchange.getRequestPath());
+            this.abort(StatusCodes.REQUEST_TIME_OUT);
+        }
+
+        private void cancelTimeouts() {
+            if(this.idle != null) this.idle.remove();
+            if(this.total != null) this.total.remove();
+        }
+
+        private void abort(int status) {
+            if(! this.exchange.isResponseStarted()) {
+                this.exchange.setStatusCode(status);
+            }
+            this.exchange.setPersistent(false);
+            this.exchange.endExchange();
+        }
+    }
+
+    /**
+     * Runs the spill tasks of a body one after the other, in order, on the worker.
+     */
+    static private class Spill implements Runnable {
+        private final Executor executor;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile IOException failure = null;
+
+        private Spill(Executor executor) {
+            this.executor = executor;
+        }
+
+        private void execute(Runnable task) {
+            this.tasks.add(task);
+            this.schedule();
+        }
+
+        private void fail(IOException e) {
+            if(this.failure == null) {
+                this.failure = e;
+            }
+        }
+
+        private void schedule() {
+            if(! this.tasks.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+                this.executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            for (Runnable task = this.tasks.poll(); task != null; task = this.tasks.poll()) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("failed spilling request body", e);
+                }
+            }
+            this.scheduled.set(false);
+            this.schedule();
+        }
+    }
+}
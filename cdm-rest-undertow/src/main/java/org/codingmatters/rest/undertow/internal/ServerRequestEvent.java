@@ -0,0 +1,71 @@
+package org.codingmatters.rest.undertow.internal;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.codingmatters.rest.io.jfr.Jfr;
+
+@Name("org.codingmatters.rest.ServerRequest")
+@Label("HTTP Server Request")
+@Description("Request processed by CdmHttpUndertowHandler, from reception to exchange completion")
+@Category({"Codingmatters", "HTTP"})
+public class ServerRequestEvent extends Event {
+
+    static private final AttachmentKey<Boolean> STARTED = AttachmentKey.create(Boolean.class);
+    static private final EventType TYPE = EventType.getEventType(ServerRequestEvent.class);
+
+    /**
+     * @return true when a running recording records the event. Only call when {@link Jfr#available()}.
+     */
+    static public boolean enabled() {
+        return TYPE.isEnabled();
+    }
+
+    /**
+     * Starts an event for the exchange if not already started, it is committed when the exchange completes. Only
+     * call when {@link Jfr#available()}, nothing is attached to the exchange when the event is not {@link #enabled()}.
+     */
+    static public void start(HttpServerExchange exchange) {
+        if(! enabled() || exchange.getAttachment(STARTED) != null) return;
+        exchange.putAttachment(STARTED, Boolean.TRUE);
+
+        ServerRequestEvent event = new ServerRequestEvent();
+        event.begin();
+        exchange.addExchangeCompleteListener((completed, next) -> {
+            event.end();
+            if(event.shouldCommit()) {
+                event.method = completed.getRequestMethod().toString();
+                event.path = completed.getRequestPath();
+                event.status = completed.getStatusCode();
+                event.requestBytes = completed.getRequestContentLength();
+                event.responseBytes = completed.getResponseBytesSent();
+                event.commit();
+            }
+            next.proceed();
+        });
+    }
+
+    @Label("Method")
+    private String method;
+
+    @Label("Path")
+    private String path;
+
+    @Label("Status")
+    private int status;
+
+    @Label("Request Bytes")
+    @Description("Request content length, -1 when unknown")
+    @DataAmount
+    private long requestBytes;
+
+    @Label("Response Bytes")
+    @DataAmount
+    private long responseBytes;
+}
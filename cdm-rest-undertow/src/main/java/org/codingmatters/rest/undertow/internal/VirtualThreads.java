@@ -0,0 +1,37 @@
+package org.codingmatters.rest.undertow.internal;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to the JDK's virtual thread per task executor, looked up reflectively so that the module still runs on
+ * JDKs without virtual threads.
+ */
+public class VirtualThreads {
+
+    static private final Method factory = lookup();
+
+    static private Method lookup() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    static public boolean available() {
+        return factory != null;
+    }
+
+    static public ExecutorService executor() {
+        if(! available()) {
+            throw new UnsupportedOperationException("virtual threads are not available on this JVM (" + System.getProperty("java.version") + ")");
+        }
+        try {
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("failed creating virtual thread executor", e);
+        }
+    }
+}
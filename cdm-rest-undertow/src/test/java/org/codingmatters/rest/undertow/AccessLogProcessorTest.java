@@ -0,0 +1,127 @@
+package org.codingmatters.rest.undertow;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.codingmatters.rest.api.processors.AccessLogProcessor;
+import org.codingmatters.rest.api.processors.RateLimitingProcessor;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class AccessLogProcessorTest extends AbstractUndertowTest {
+
+    private final OkHttpClient client = new OkHttpClient();
+    private AccessLogProcessor processor;
+
+    @After
+    public void tearDown() throws Exception {
+        if(this.processor != null) {
+            this.processor.close();
+        }
+    }
+
+    private int status(Request.Builder request) throws Exception {
+        try(Response response = this.client.newCall(request.get().build()).execute()) {
+            return response.code();
+        }
+    }
+
+    @Test
+    public void givenFormat__whenRequestProcessed__thenEntryWrittenWithStatusBytesAndRoute() throws Exception {
+        StringWriter out = new StringWriter();
+        this.processor = AccessLogProcessor.builder((request, response) -> response.status(201).payload("hello", "utf-8"))
+                .format("%m %U %r %s %b %Dus")
+                .route(RateLimitingProcessor.Key.route("/items/{id}")::of)
+                .output(out)
+                .build();
+        this.withProcessor(this.processor);
+
+        assertThat(this.status(this.requestBuilder("/items/12")), is(201));
+        this.processor.close();
+
+        assertThat(out.toString(), out.toString().matches("GET /items/12 /items/\\{id\\} 201 5 \\d+us\n"), is(true));
+        assertThat(this.processor.written(), is(1L));
+    }
+
+    @Test
+    public void givenProcessorFails__whenRequestProcessed__thenEntryWrittenWith500() throws Exception {
+        StringWriter out = new StringWriter();
+        this.processor = AccessLogProcessor.builder((request, response) -> {
+                    throw new IOException("failing");
+                })
+                .format("%s %U")
+                .output(out)
+                .build();
+        this.withProcessor(this.processor);
+
+        this.status(this.requestBuilder("/failing"));
+        this.processor.close();
+
+        assertThat(out.toString(), is("500 /failing\n"));
+    }
+
+    @Test
+    public void givenOutputIsBlocked__whenBufferIsFull__thenEntriesAreDroppedWithoutBlockingRequests() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        this.processor = AccessLogProcessor.builder((request, response) -> response.status(200))
+                .capacity(2)
+                .output(new StringWriter() {
+                    @Override
+                    public StringWriter append(CharSequence csq) {
+                        try {
+                            blocked.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return super.append(csq);
+                    }
+                })
+                .build();
+        this.withProcessor(this.processor);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            assertThat(this.status(this.requestBuilder()), is(200));
+        }
+        assertThat(System.nanoTime() - start, is(lessThan(TimeUnit.SECONDS.toNanos(5))));
+        assertThat(this.processor.dropped(), is(greaterThanOrEqualTo(7L)));
+
+        blocked.countDown();
+        this.processor.close();
+        assertThat(this.processor.written() + this.processor.dropped(), is(10L));
+    }
+
+    @Test
+    public void givenRouteFunctionFails__whenRequestProcessed__thenEntryDropped_andLaterEntriesWritten() throws Exception {
+        StringWriter out = new StringWriter();
+        this.processor = AccessLogProcessor.builder((request, response) -> response.status(200))
+                .format("%s %r")
+                .route(request -> {
+                    if(request.path().equals("/failing")) throw new IllegalStateException("route failure");
+                    return request.path();
+                })
+                .output(out)
+                .build();
+        this.withProcessor(this.processor);
+
+        assertThat(this.status(this.requestBuilder("/failing")), is(200));
+        assertThat(this.status(this.requestBuilder("/working")), is(200));
+        this.processor.close();
+
+        assertThat(out.toString(), is("200 /working\n"));
+        assertThat(this.processor.dropped(), is(1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenUnknownFormatToken__whenBuilding__thenIllegalArgument() throws Exception {
+        AccessLogProcessor.builder((request, response) -> response.status(200)).format("%z").build();
+    }
+}
@@ -0,0 +1,179 @@
+package org.codingmatters.rest.undertow;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.codingmatters.rest.api.processors.CachingProcessor;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CachingProcessorTest extends AbstractUndertowTest {
+
+    private final OkHttpClient client = new OkHttpClient();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private CachingProcessor cachingProcessor(String cacheControl) {
+        return new CachingProcessor((request, response) -> {
+            int call = this.calls.incrementAndGet();
+            if(cacheControl != null) {
+                response.addHeader("Cache-Control", cacheControl);
+            }
+            response.status(200).contenType("text/plain").payload("call " + call, "utf-8");
+        }, 1024 * 1024);
+    }
+
+    private String get(Request.Builder request) throws Exception {
+        try(Response response = this.client.newCall(request.get().build()).execute()) {
+            return response.body().string();
+        }
+    }
+
+    @Test
+    public void givenMaxAge__whenRequestedTwice__thenSecondIsServedFromCache() throws Exception {
+        CachingProcessor processor = this.cachingProcessor("public, max-age=60");
+        this.withProcessor(processor);
+
+        assertThat(this.get(this.requestBuilder("/resource")), is("call 1"));
+        try(Response response = this.client.newCall(this.requestBuilder("/resource").get().build()).execute()) {
+            assertThat(response.body().string(), is("call 1"));
+            assertThat(response.header("Cache-Control"), is("public, max-age=60"));
+            assertThat(response.header("Age"), is("0"));
+        }
+
+        assertThat(this.calls.get(), is(1));
+        assertThat(processor.hits(), is(1L));
+        assertThat(processor.misses(), is(1L));
+    }
+
+    @Test
+    public void givenQueryParametersInAnotherOrder__whenRequested__thenSameEntry() throws Exception {
+        this.withProcessor(this.cachingProcessor("max-age=60"));
+
+        assertThat(this.get(this.requestBuilder("/resource?a=1&b=2")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource?b=2&a=1")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource?a=2&b=2")), is("call 2"));
+    }
+
+    @Test
+    public void givenCommaInQueryParameterValue__whenRequested__thenNotMistakenForSeveralValues() throws Exception {
+        this.withProcessor(this.cachingProcessor("max-age=60"));
+
+        assertThat(this.get(this.requestBuilder("/resource?x=a,b")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource?x=a&x=b")), is("call 2"));
+        assertThat(this.get(this.requestBuilder("/resource?x=a,b")), is("call 1"));
+    }
+
+    @Test
+    public void givenCommaInKeyHeaderValue__whenRequested__thenNotMistakenForSeveralValues() throws Exception {
+        this.withProcessor(this.cachingProcessor("max-age=60"));
+
+        assertThat(this.get(this.requestBuilder("/resource").header("Accept-Language", "fr,en")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource").addHeader("Accept-Language", "fr").addHeader("Accept-Language", "en")), is("call 2"));
+    }
+
+    @Test
+    public void givenKeyHeader__whenValueDiffers__thenDistinctEntries() throws Exception {
+        this.withProcessor(this.cachingProcessor("max-age=60"));
+
+        assertThat(this.get(this.requestBuilder("/resource").header("Accept", "text/plain")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource").header("Accept", "application/json")), is("call 2"));
+        assertThat(this.get(this.requestBuilder("/resource").header("Accept", "text/plain")), is("call 1"));
+    }
+
+    @Test
+    public void givenPublicResponse__whenAuthorizationDiffers__thenDistinctEntries() throws Exception {
+        this.withProcessor(this.cachingProcessor("public, max-age=60"));
+
+        assertThat(this.get(this.requestBuilder("/resource").header("Authorization", "Bearer alice")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource").header("Authorization", "Bearer bob")), is("call 2"));
+        assertThat(this.get(this.requestBuilder("/resource").header("Authorization", "Bearer alice")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource")), is("call 3"));
+    }
+
+    @Test
+    public void givenAuthorizedRequest__whenResponseIsNotExplicitlyShared__thenNotCached() throws Exception {
+        this.withProcessor(this.cachingProcessor("max-age=60"));
+
+        assertThat(this.get(this.requestBuilder("/resource").header("Authorization", "Bearer alice")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource").header("Authorization", "Bearer alice")), is("call 2"));
+    }
+
+    @Test
+    public void givenCacheControlValuesInSeveralHeaders__whenOneIsPrivate__thenNotCached() throws Exception {
+        this.withProcessor(new CachingProcessor((request, response) -> response
+                .addHeader("Cache-Control", "max-age=60", "private")
+                .status(200).contenType("text/plain").payload("call " + this.calls.incrementAndGet(), "utf-8"), 1024 * 1024));
+
+        assertThat(this.get(this.requestBuilder("/resource")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource")), is("call 2"));
+    }
+
+    @Test
+    public void givenVaryValuesInSeveralHeaders__whenOneIsNotAKeyHeader__thenNotCached() throws Exception {
+        this.withProcessor(new CachingProcessor((request, response) -> response
+                .addHeader("Cache-Control", "max-age=60")
+                .addHeader("Vary", "Accept", "X-Tenant")
+                .status(200).contenType("text/plain").payload("call " + this.calls.incrementAndGet(), "utf-8"), 1024 * 1024));
+
+        assertThat(this.get(this.requestBuilder("/resource").header("X-Tenant", "a")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource").header("X-Tenant", "b")), is("call 2"));
+    }
+
+    @Test
+    public void givenNoCacheControl__whenRequestedTwice__thenNotCached() throws Exception {
+        this.withProcessor(this.cachingProcessor(null));
+
+        assertThat(this.get(this.requestBuilder("/resource")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource")), is("call 2"));
+    }
+
+    @Test
+    public void givenNoStore__whenRequestedTwice__thenNotCached() throws Exception {
+        this.withProcessor(this.cachingProcessor("no-store, max-age=60"));
+
+        assertThat(this.get(this.requestBuilder("/resource")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource")), is("call 2"));
+    }
+
+    @Test
+    public void givenCachedResponse__whenRequestAsksNoCache__thenHandlerIsInvoked() throws Exception {
+        this.withProcessor(this.cachingProcessor("max-age=60"));
+
+        assertThat(this.get(this.requestBuilder("/resource")), is("call 1"));
+        assertThat(this.get(this.requestBuilder("/resource").header("Cache-Control", "no-cache")), is("call 2"));
+    }
+
+    @Test
+    public void givenPost__whenRequestedTwice__thenNotCached() throws Exception {
+        this.withProcessor(this.cachingProcessor("max-age=60"));
+
+        for (int i = 1; i <= 2; i++) {
+            try(Response response = this.client.newCall(this.requestBuilder("/resource")
+                    .post(RequestBody.create(MediaType.parse("text/plain"), "body"))
+                    .build()).execute()) {
+                assertThat(response.body().string(), is("call " + i));
+            }
+        }
+    }
+
+    @Test
+    public void givenMaxSize__whenManyEntries__thenWeightStaysBounded() throws Exception {
+        CachingProcessor processor = new CachingProcessor((request, response) -> response
+                .addHeader("Cache-Control", "max-age=60")
+                .payload(new byte[1000]), 10 * 1024);
+        this.withProcessor(processor);
+
+        for (int i = 0; i < 50; i++) {
+            this.get(this.requestBuilder("/resource/" + i));
+        }
+
+        assertThat(processor.weight() <= 10 * 1024, is(true));
+        assertThat(processor.size() > 0, is(true));
+    }
+}
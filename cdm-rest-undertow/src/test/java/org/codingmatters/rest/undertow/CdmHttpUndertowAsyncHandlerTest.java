@@ -0,0 +1,102 @@
+package org.codingmatters.rest.undertow;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.codingmatters.rest.api.AsyncProcessor;
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.api.ResponseDelegate;
+import org.codingmatters.rest.io.content.ContentHelper;
+import org.codingmatters.rest.undertow.support.UndertowResource;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CdmHttpUndertowAsyncHandlerTest {
+
+    @Rule
+    public UndertowResource undertow = new UndertowResource(new CdmHttpUndertowAsyncHandler(this::process));
+
+    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+    private final OkHttpClient client = new OkHttpClient();
+
+    private AsyncProcessor testProcessor;
+
+    private CompletionStage<Void> process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) {
+        return this.testProcessor.process(requestDelegate, responseDelegate);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.pool.shutdownNow();
+    }
+
+    @Test
+    public void givenStageCompletedLater__whenRequesting__thenResponseIsWrittenOnCompletion() throws Exception {
+        this.testProcessor = (request, response) -> CompletableFuture.runAsync(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(100);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            response.status(201).contenType("text/plain").payload("done", "utf-8");
+        }, this.pool);
+
+        try(Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl()).get().build()).execute()) {
+            assertThat(response.code(), is(201));
+            assertThat(response.body().string(), is("done"));
+        }
+    }
+
+    @Test
+    public void givenRequestPayload__whenReadSynchronously__thenAvailableToAsyncCompletion() throws Exception {
+        this.testProcessor = (request, response) -> {
+            String payload;
+            try {
+                payload = new String(ContentHelper.bytes(request.payload()));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            return CompletableFuture.runAsync(() -> response.status(200).payload(payload, "utf-8"), this.pool);
+        };
+
+        try(Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl())
+                .post(RequestBody.create(MediaType.parse("text/plain"), "hello"))
+                .build()).execute()) {
+            assertThat(response.body().string(), is("hello"));
+        }
+    }
+
+    @Test
+    public void givenStageFailing__whenRequesting__then500() throws Exception {
+        this.testProcessor = (request, response) -> {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            this.pool.execute(() -> result.completeExceptionally(new RuntimeException("failed")));
+            return result;
+        };
+
+        try(Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl()).get().build()).execute()) {
+            assertThat(response.code(), is(500));
+        }
+    }
+
+    @Test
+    public void givenSynchronousProcessor__whenAdapted__thenProcessedAsUsual() throws Exception {
+        this.testProcessor = AsyncProcessor.from((request, response) -> response.status(202));
+
+        try(Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl()).get().build()).execute()) {
+            assertThat(response.code(), is(202));
+        }
+    }
+}
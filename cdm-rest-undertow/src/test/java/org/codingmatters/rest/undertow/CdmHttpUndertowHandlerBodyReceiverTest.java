@@ -0,0 +1,132 @@
+package org.codingmatters.rest.undertow;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import org.codingmatters.rest.api.Processor;
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.api.ResponseDelegate;
+import org.codingmatters.rest.io.content.ContentHelper;
+import org.codingmatters.rest.undertow.internal.RequestBodyBudget;
+import org.codingmatters.rest.undertow.internal.RequestBodyReceiver;
+import org.codingmatters.rest.undertow.support.UndertowResource;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+public class CdmHttpUndertowHandlerBodyReceiverTest {
+
+    @Rule
+    public UndertowResource undertow = new UndertowResource(new CdmHttpUndertowHandler(
+            this::process,
+            null,
+            new RequestBodyReceiver(new RequestBodyBudget(10000, 5000), 200, 1000, 1024 * 1024)
+    ));
+
+    private final OkHttpClient client = new OkHttpClient();
+
+    private Processor testProcessor;
+
+    private void process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) throws IOException {
+        this.testProcessor.process(requestDelegate, responseDelegate);
+    }
+
+    @Test
+    public void givenRequestWithPayload__whenProcessed__thenPayloadWasReceived() throws Exception {
+        this.testProcessor = (request, response) -> response.payload(ContentHelper.bytes(request.payload()));
+
+        try(Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl())
+                .post(RequestBody.create(MediaType.parse("text/plain"), "hello"))
+                .build()).execute()) {
+            assertThat(response.body().string(), is("hello"));
+        }
+    }
+
+    @Test
+    public void givenRequestWithoutPayload__whenProcessed__thenPayloadIsEmpty() throws Exception {
+        this.testProcessor = (request, response) -> response.status(200).payload(ContentHelper.bytes(request.payload()).length + "", "utf-8");
+
+        try(Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl()).get().build()).execute()) {
+            assertThat(response.body().string(), is("0"));
+        }
+    }
+
+    @Test
+    public void givenChunkedBodyOverflowingTheThreshold__whenProcessed__thenSpilledPayloadWasReceived() throws Exception {
+        this.testProcessor = (request, response) -> response.status(200).payload(ContentHelper.bytes(request.payload()).length + "", "utf-8");
+
+        try(Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl())
+                .post(this.chunked(100 * 1024))
+                .build()).execute()) {
+            assertThat(response.code(), is(200));
+            assertThat(response.body().string(), is("" + 100 * 1024));
+        }
+    }
+
+    @Test
+    public void givenChunkedBodyBiggerThanMaxSize__whenReceived__then413_andNotProcessed() throws Exception {
+        AtomicBoolean processed = new AtomicBoolean(false);
+        this.testProcessor = (request, response) -> processed.set(true);
+
+        try(Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl())
+                .post(this.chunked(2 * 1024 * 1024))
+                .build()).execute()) {
+            assertThat(response.code(), is(413));
+        } catch (IOException e) {
+            // the server may close the connection before the whole body is sent
+        }
+        assertThat(processed.get(), is(false));
+    }
+
+    private RequestBody chunked(int size) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return MediaType.parse("application/octet-stream");
+            }
+
+            @Override
+            public long contentLength() {
+                return -1;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                byte[] chunk = new byte[1024];
+                for (int i = 0; i < size / chunk.length; i++) {
+                    sink.write(chunk);
+                    sink.flush();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void givenSlowClient__whenBodyIsIncompleteAfterIdleTimeout__then408() throws Exception {
+        this.testProcessor = (request, response) -> response.status(200);
+
+        URL url = new URL(this.undertow.baseUrl());
+        try(Socket socket = new Socket(url.getHost(), url.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST / HTTP/1.1\r\nHost: localhost\r\nContent-Type: text/plain\r\nContent-Length: 10\r\n\r\nhel").getBytes());
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            assertThat(in.readLine(), startsWith("HTTP/1.1 408"));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.codingmatters.rest.undertow;
+
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.codingmatters.rest.api.Processor;
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.api.ResponseDelegate;
+import org.codingmatters.rest.undertow.internal.ConcurrencyLimits;
+import org.codingmatters.rest.undertow.support.UndertowResource;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CdmHttpUndertowHandlerConcurrencyLimitTest {
+
+    private final ConcurrencyLimits limits = ConcurrencyLimits.adaptive(1, 1, 1)
+            .group("slow", "/slow");
+
+    @Rule
+    public UndertowResource undertow = new UndertowResource(CdmHttpUndertowHandler.builder(this::process)
+            .concurrencyLimits(this.limits)
+            .build());
+
+    private final OkHttpClient client = new OkHttpClient.Builder().dispatcher(this.dispatcher()).build();
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private void process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) throws IOException {
+        if(requestDelegate.path().startsWith("/slow")) {
+            this.entered.countDown();
+            try {
+                this.release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        responseDelegate.status(200);
+    }
+
+    private Dispatcher dispatcher() {
+        Dispatcher result = new Dispatcher();
+        result.setMaxRequestsPerHost(10);
+        return result;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.release.countDown();
+        this.pool.shutdownNow();
+    }
+
+    private int status(String path) throws IOException {
+        try(Response response = this.client.newCall(new Request.Builder().url(this.undertow.baseUrl() + path).get().build()).execute()) {
+            return response.code();
+        }
+    }
+
+    @Test
+    public void givenGroupLimitReached__whenRequestingTheGroup__then503_andOtherGroupsAreNotAffected() throws Exception {
+        Future<Integer> slow = this.pool.submit(() -> this.status("/slow/1"));
+        assertThat(this.entered.await(5, TimeUnit.SECONDS), is(true));
+
+        assertThat(this.status("/slow/2"), is(503));
+        assertThat(this.status("/fast"), is(200));
+
+        this.release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS), is(200));
+        assertThat(this.limits.limiters().get("slow").rejected(), is(1L));
+    }
+
+    @Test
+    public void givenRequestCompleted__whenRequestingAgain__thenPermitWasReleased() throws Exception {
+        this.release.countDown();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(this.status("/slow/" + i), is(200));
+        }
+        assertThat(this.limits.limiters().get("slow").inFlight(), is(0));
+        assertThat(this.limits.limiters().get("slow").accepted(), is(5L));
+    }
+}
@@ -0,0 +1,101 @@
+package org.codingmatters.rest.undertow;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.codingmatters.rest.api.Processor;
+import org.codingmatters.rest.undertow.internal.VirtualThreads;
+import org.codingmatters.rest.undertow.support.UndertowResource;
+import org.junit.Assume;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares worker pool and virtual thread dispatch for processors blocking on a (simulated) downstream call.
+ */
+@Ignore
+public class CdmHttpUndertowHandlerExecutionModeBenchmarkTest {
+
+    static private final int CONCURRENCY = 400;
+    static private final int REQUESTS = 20000;
+    static private final long DOWNSTREAM_LATENCY_MS = 20;
+
+    static private final Processor BLOCKING_PROCESSOR = (request, response) -> {
+        try {
+            TimeUnit.MILLISECONDS.sleep(DOWNSTREAM_LATENCY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        response.status(200).contenType("text/plain").payload("ok", "utf-8");
+    };
+
+    @Rule
+    public UndertowResource workerPool = new UndertowResource(new CdmHttpUndertowHandler(BLOCKING_PROCESSOR));
+
+    @Rule
+    public UndertowResource virtualThreads = new UndertowResource(VirtualThreads.available() ?
+            CdmHttpUndertowHandler.onVirtualThreads(BLOCKING_PROCESSOR) :
+            new CdmHttpUndertowHandler(BLOCKING_PROCESSOR));
+
+    @Test
+    public void workerPool() throws Exception {
+        this.run("worker pool", this.workerPool.baseUrl());
+    }
+
+    @Test
+    public void virtualThreads() throws Exception {
+        Assume.assumeTrue("virtual threads not available", VirtualThreads.available());
+        this.run("virtual threads", this.virtualThreads.baseUrl());
+    }
+
+    private void run(String mode, String url) throws Exception {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(CONCURRENCY);
+        dispatcher.setMaxRequestsPerHost(CONCURRENCY);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(CONCURRENCY, 1, TimeUnit.MINUTES))
+                .build();
+
+        ExecutorService callers = Executors.newFixedThreadPool(CONCURRENCY);
+        AtomicInteger remaining = new AtomicInteger(REQUESTS);
+        AtomicInteger errors = new AtomicInteger();
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CONCURRENCY; i++) {
+                futures.add(callers.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        try (Response response = client.newCall(new Request.Builder().url(url).get().build()).execute()) {
+                            if (response.code() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("%-16s - %d requests in %d ms - %.1f req/s - %d errors\n",
+                    mode, REQUESTS, TimeUnit.NANOSECONDS.toMillis(elapsed), REQUESTS / (elapsed / 1e9), errors.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.codingmatters.rest.undertow;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.api.ResponseDelegate;
+import org.codingmatters.rest.undertow.internal.QueueDeadlines;
+import org.codingmatters.rest.undertow.internal.RequestBodyBudget;
+import org.codingmatters.rest.undertow.internal.RequestBodyReceiver;
+import org.codingmatters.rest.undertow.support.UndertowResource;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CdmHttpUndertowHandlerQueueDeadlinesTest {
+
+    private final QueueDeadlines deadlines = new QueueDeadlines(100);
+    private final AtomicLong queueDelay = new AtomicLong(0);
+    private final AtomicInteger processed = new AtomicInteger();
+
+    private final Executor delayingExecutor = task -> new Thread(() -> {
+        try {
+            TimeUnit.MILLISECONDS.sleep(this.queueDelay.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        task.run();
+    }).start();
+
+    @Rule
+    public UndertowResource undertow = new UndertowResource(CdmHttpUndertowHandler.builder(this::process)
+            .executor(this.delayingExecutor)
+            .queueDeadlines(this.deadlines)
+            .build());
+
+    private final RequestBodyBudget budget = new RequestBodyBudget(10000, 5000);
+
+    @Rule
+    public UndertowResource receivingUndertow = new UndertowResource(CdmHttpUndertowHandler.builder(this::process)
+            .executor(this.delayingExecutor)
+            .bodyReceiver(new RequestBodyReceiver(this.budget, 200, 1000))
+            .queueDeadlines(this.deadlines)
+            .build());
+
+    private final OkHttpClient client = new OkHttpClient();
+
+    private void process(RequestDelegate requestDelegate, ResponseDelegate responseDelegate) throws IOException {
+        this.processed.incrementAndGet();
+        responseDelegate.status(200);
+    }
+
+    private int status(Request.Builder request) throws IOException {
+        try(Response response = this.client.newCall(request.get().build()).execute()) {
+            return response.code();
+        }
+    }
+
+    @Test
+    public void givenShortQueueWait__whenRequesting__thenProcessed_andWaitIsRecorded() throws Exception {
+        assertThat(this.status(new Request.Builder().url(this.undertow.baseUrl())), is(200));
+
+        assertThat(this.processed.get(), is(1));
+        assertThat(this.deadlines.queueWait().count(), is(1L));
+    }
+
+    @Test
+    public void givenQueueWaitExceedsBudget__whenRequesting__then503_andNotProcessed() throws Exception {
+        this.queueDelay.set(300);
+
+        assertThat(this.status(new Request.Builder().url(this.undertow.baseUrl())), is(503));
+
+        assertThat(this.processed.get(), is(0));
+        assertThat(this.deadlines.shedOnQueueWait(), is(1L));
+    }
+
+    @Test
+    public void givenClientDeadlineExpiredWhileQueued__whenRequesting__then503_andNotProcessed() throws Exception {
+        this.queueDelay.set(50);
+
+        assertThat(this.status(new Request.Builder().url(this.undertow.baseUrl()).header("X-Request-Timeout", "10")), is(503));
+
+        assertThat(this.processed.get(), is(0));
+        assertThat(this.deadlines.shedOnDeadline(), is(1L));
+    }
+
+    @Test
+    public void givenClientDeadlineNotExpired__whenRequesting__thenProcessed() throws Exception {
+        assertThat(this.status(new Request.Builder().url(this.undertow.baseUrl()).header("X-Request-Timeout", "5000")), is(200));
+    }
+
+    @Test
+    public void givenReceivedBody__whenQueueWaitExceedsBudget__then503_andBodyIsReleased() throws Exception {
+        this.queueDelay.set(300);
+
+        RequestBody chunked = new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return MediaType.parse("application/octet-stream");
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                sink.write(new byte[500]);
+            }
+        };
+        try(Response response = this.client.newCall(new Request.Builder().url(this.receivingUndertow.baseUrl()).post(chunked).build()).execute()) {
+            assertThat(response.code(), is(503));
+        }
+
+        assertThat(this.processed.get(), is(0));
+        assertThat(this.budget.held(), is(0L));
+    }
+}
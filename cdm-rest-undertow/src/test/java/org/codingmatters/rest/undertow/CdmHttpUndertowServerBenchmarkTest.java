@@ -0,0 +1,112 @@
+package org.codingmatters.rest.undertow;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares HTTP/1.1 (a connection per in-flight request) and h2c (requests multiplexed on one connection) throughput.
+ */
+@Ignore
+public class CdmHttpUndertowServerBenchmarkTest {
+
+    static private final int CONCURRENCY = 200;
+    static private final int REQUESTS = 100_000;
+
+    private CdmHttpUndertowServer server;
+    private String baseUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        int port;
+        try(ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        byte[] payload = new byte[2048];
+        this.server = CdmHttpUndertowServer.builder((request, response) -> response.status(200).contenType("application/octet-stream").payload(payload))
+                .http(port, "localhost")
+                .build()
+                .start();
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.server.stop();
+    }
+
+    @Test
+    public void http11() throws Exception {
+        this.run("HTTP/1.1", Arrays.asList(Protocol.HTTP_1_1));
+    }
+
+    @Test
+    public void h2c() throws Exception {
+        this.run("h2c", Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+    }
+
+    private void run(String name, List<Protocol> protocols) throws Exception {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(CONCURRENCY);
+        dispatcher.setMaxRequestsPerHost(CONCURRENCY);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .protocols(protocols)
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(CONCURRENCY, 1, TimeUnit.MINUTES))
+                .build();
+
+        this.requests(client, REQUESTS / 10);
+
+        long start = System.nanoTime();
+        int errors = this.requests(client, REQUESTS);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-8s - %d requests in %d ms - %.1f req/s - %d errors - %d connections\n",
+                name, REQUESTS, TimeUnit.NANOSECONDS.toMillis(elapsed), REQUESTS / (elapsed / 1e9), errors, client.connectionPool().connectionCount());
+        dispatcher.executorService().shutdown();
+    }
+
+    private int requests(OkHttpClient client, int count) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(count);
+        AtomicInteger errors = new AtomicInteger();
+        for (int i = 0; i < count; i++) {
+            client.newCall(new Request.Builder().url(this.baseUrl).get().build()).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    errors.incrementAndGet();
+                    done.countDown();
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try(Response r = response) {
+                        r.body().bytes();
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return errors.get();
+    }
+}
@@ -0,0 +1,57 @@
+package org.codingmatters.rest.undertow;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CdmHttpUndertowServerTest {
+
+    private CdmHttpUndertowServer server;
+    private String baseUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        int port;
+        try(ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        this.server = CdmHttpUndertowServer.builder((request, response) -> response.status(200).contenType("text/plain").payload("yop", "utf-8"))
+                .http(port, "localhost")
+                .ioThreads(2)
+                .build()
+                .start();
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.server.stop();
+    }
+
+    @Test
+    public void givenServer__whenRequestingWithHttp11__thenProcessorResponds() throws Exception {
+        try(Response response = new OkHttpClient().newCall(new Request.Builder().url(this.baseUrl).get().build()).execute()) {
+            assertThat(response.protocol(), is(Protocol.HTTP_1_1));
+            assertThat(response.body().string(), is("yop"));
+        }
+    }
+
+    @Test
+    public void givenServer__whenRequestingWithH2cPriorKnowledge__thenProcessorResponds() throws Exception {
+        OkHttpClient client = new OkHttpClient.Builder().protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE)).build();
+        try(Response response = client.newCall(new Request.Builder().url(this.baseUrl).get().build()).execute()) {
+            assertThat(response.protocol(), is(Protocol.H2_PRIOR_KNOWLEDGE));
+            assertThat(response.body().string(), is("yop"));
+        }
+    }
+}
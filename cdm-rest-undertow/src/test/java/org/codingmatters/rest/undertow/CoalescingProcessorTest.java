@@ -0,0 +1,109 @@
+package org.codingmatters.rest.undertow;
+
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import org.codingmatters.rest.api.processors.CoalescingProcessor;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CoalescingProcessorTest extends AbstractUndertowTest {
+
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .dispatcher(this.dispatcher())
+            .build();
+    private final ExecutorService pool = Executors.newFixedThreadPool(10);
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private Dispatcher dispatcher() {
+        Dispatcher result = new Dispatcher();
+        result.setMaxRequestsPerHost(20);
+        return result;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.release.countDown();
+        this.pool.shutdownNow();
+    }
+
+    private CoalescingProcessor slowProcessor() {
+        return new CoalescingProcessor((request, response) -> {
+            int call = this.calls.incrementAndGet();
+            try {
+                this.release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.status(200).contenType("text/plain").payload("call " + call, "utf-8");
+        });
+    }
+
+    private Future<String> get(String path) {
+        return this.pool.submit(() -> {
+            try(Response response = this.client.newCall(this.requestBuilder(path).get().build()).execute()) {
+                return response.code() + " " + response.body().string();
+            }
+        });
+    }
+
+    @Test
+    public void givenIdenticalConcurrentRequests__whenFirstIsInFlight__thenProcessedOnce_andResponseIsSharedWithWaiters() throws Exception {
+        CoalescingProcessor processor = this.slowProcessor();
+        this.withProcessor(processor);
+
+        List<Future<String>> responses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            responses.add(this.get("/resource?q=1"));
+        }
+        for(long start = System.currentTimeMillis() ; processor.waiters() < 4 && System.currentTimeMillis() - start < 5000 ; ) {
+            Thread.sleep(10);
+        }
+        this.release.countDown();
+
+        for (Future<String> response : responses) {
+            assertThat(response.get(10, TimeUnit.SECONDS), is("200 call 1"));
+        }
+        assertThat(this.calls.get(), is(1));
+        assertThat(processor.executions(), is(1L));
+        assertThat(processor.coalesced(), is(4L));
+        assertThat(processor.coalescingRatio(), is(0.8));
+    }
+
+    @Test
+    public void givenDistinctConcurrentRequests__whenInFlight__thenEachIsProcessed() throws Exception {
+        CoalescingProcessor processor = this.slowProcessor();
+        this.withProcessor(processor);
+
+        Future<String> first = this.get("/resource?q=1");
+        Future<String> second = this.get("/resource?q=2");
+        for(long start = System.currentTimeMillis() ; this.calls.get() < 2 && System.currentTimeMillis() - start < 5000 ; ) {
+            Thread.sleep(10);
+        }
+        this.release.countDown();
+
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        assertThat(this.calls.get(), is(2));
+        assertThat(processor.coalesced(), is(0L));
+    }
+
+    @Test
+    public void givenSequentialRequests__whenPreviousCompleted__thenProcessedAgain() throws Exception {
+        this.release.countDown();
+        this.withProcessor(this.slowProcessor());
+
+        assertThat(this.get("/resource").get(10, TimeUnit.SECONDS), is("200 call 1"));
+        assertThat(this.get("/resource").get(10, TimeUnit.SECONDS), is("200 call 2"));
+    }
+}
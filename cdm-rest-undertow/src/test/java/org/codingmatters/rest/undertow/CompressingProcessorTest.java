@@ -0,0 +1,190 @@
+package org.codingmatters.rest.undertow;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.codingmatters.rest.api.processors.CompressingProcessor;
+import org.codingmatters.rest.io.content.ContentHelper;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class CompressingProcessorTest extends AbstractUndertowTest {
+
+    private final OkHttpClient client = new OkHttpClient();
+
+    private final String big = this.big();
+
+    @Test
+    public void givenClientAcceptsGzip__whenJsonPayloadIsBig__thenResponseIsCompressed() throws Exception {
+        this.withProcessor(new CompressingProcessor((request, response) -> response.contenType("application/json").payload(this.big, "utf-8")));
+
+        try(Response response = this.client.newCall(this.requestBuilder().header("Accept-Encoding", "gzip").get().build()).execute()) {
+            assertThat(response.header("Content-Encoding"), is("gzip"));
+            assertThat(response.header("Vary"), is("Accept-Encoding"));
+            assertThat(new String(ContentHelper.bytes(new GZIPInputStream(new ByteArrayInputStream(response.body().bytes()))), "utf-8"), is(this.big));
+        }
+    }
+
+    @Test
+    public void givenResponseAlreadyVaries__whenCompressed__thenAcceptEncodingIsAddedToVary() throws Exception {
+        this.withProcessor(new CompressingProcessor((request, response) -> response
+                .addHeader("Vary", "Accept-Language")
+                .contenType("application/json").payload(this.big, "utf-8")));
+
+        try(Response response = this.client.newCall(this.requestBuilder().header("Accept-Encoding", "gzip").get().build()).execute()) {
+            assertThat(response.header("Content-Encoding"), is("gzip"));
+            assertThat(response.headers("Vary"), contains("Accept-Language", "Accept-Encoding"));
+        }
+    }
+
+    @Test
+    public void givenClientAcceptsGzip__whenPayloadIsStreamed__thenResponseIsCompressed() throws Exception {
+        this.withProcessor(new CompressingProcessor((request, response) -> {
+            response.contenType("application/json");
+            try(OutputStream out = response.payloadStream()) {
+                out.write(this.big.getBytes("utf-8"));
+            }
+        }));
+
+        try(Response response = this.client.newCall(this.requestBuilder().get().build()).execute()) {
+            assertThat(response.body().string(), is(this.big));
+        }
+    }
+
+    @Test
+    public void givenClientAcceptsGzip__whenPayloadIsSmall__thenResponseIsNotCompressed() throws Exception {
+        this.withProcessor(new CompressingProcessor((request, response) -> response.contenType("application/json").payload("{}", "utf-8")));
+
+        try(Response response = this.client.newCall(this.requestBuilder().header("Accept-Encoding", "gzip").get().build()).execute()) {
+            assertThat(response.header("Content-Encoding"), is(nullValue()));
+            assertThat(response.body().string(), is("{}"));
+        }
+    }
+
+    @Test
+    public void givenClientAcceptsGzip__whenContentTypeNotAllowed__thenResponseIsNotCompressed() throws Exception {
+        this.withProcessor(new CompressingProcessor((request, response) -> response.contenType("image/png").payload(this.big, "utf-8")));
+
+        try(Response response = this.client.newCall(this.requestBuilder().header("Accept-Encoding", "gzip").get().build()).execute()) {
+            assertThat(response.header("Content-Encoding"), is(nullValue()));
+            assertThat(response.body().string(), is(this.big));
+        }
+    }
+
+    @Test
+    public void givenClientDoesNotAcceptEncoding__whenPayloadIsBig__thenResponseIsNotCompressed() throws Exception {
+        this.withProcessor(new CompressingProcessor((request, response) -> response.contenType("application/json").payload(this.big, "utf-8")));
+
+        try(Response response = this.client.newCall(this.requestBuilder().header("Accept-Encoding", "identity").get().build()).execute()) {
+            assertThat(response.header("Content-Encoding"), is(nullValue()));
+            assertThat(response.body().string(), is(this.big));
+        }
+    }
+
+    @Test
+    public void givenGzipEncodedRequest__whenPayloadIsRead__thenPayloadIsDecompressed() throws Exception {
+        this.withProcessor(new CompressingProcessor((request, response) -> response.contenType("text/plain").payload(ContentHelper.bytes(request.payload()))));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try(GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(this.big.getBytes("utf-8"));
+        }
+        try(Response response = this.client.newCall(this.requestBuilder()
+                .header("Content-Encoding", "gzip")
+                .post(RequestBody.create(MediaType.parse("application/json"), compressed.toByteArray()))
+                .build()).execute()) {
+            assertThat(response.body().string(), is(this.big));
+        }
+    }
+
+    @Test
+    public void givenGzipEncodedRequest__whenInflatedPayloadExceedsMaxSize__thenPayloadTooLarge() throws Exception {
+        this.withProcessor(new CompressingProcessor(
+                (request, response) -> response.status(200).contenType("text/plain").payload(ContentHelper.bytes(request.payload())),
+                CompressingProcessor.DEFAULT_MIN_SIZE, CompressingProcessor.DEFAULT_CONTENT_TYPES, 1024 * 1024
+        ));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try(GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(new byte[2 * 1024 * 1024]);
+        }
+        try(Response response = this.client.newCall(this.requestBuilder()
+                .header("Content-Encoding", "gzip")
+                .post(RequestBody.create(MediaType.parse("application/octet-stream"), compressed.toByteArray()))
+                .build()).execute()) {
+            assertThat(response.code(), is(413));
+            assertThat(response.body().bytes().length, is(0));
+        }
+    }
+
+    @Test
+    public void givenGzipEncodedRequest__whenReadingHeaders__thenEncodingAndCompressedLengthAreRemoved() throws Exception {
+        AtomicReference<Map<String, List<String>>> headers = new AtomicReference<>();
+        this.withProcessor(new CompressingProcessor((request, response) -> headers.set(request.headers())));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try(GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(this.big.getBytes("utf-8"));
+        }
+        try(Response response = this.client.newCall(this.requestBuilder()
+                .header("Content-Encoding", "gzip")
+                .post(RequestBody.create(MediaType.parse("application/json"), compressed.toByteArray()))
+                .build()).execute()) {
+            assertThat(response.code(), is(200));
+        }
+        assertThat(headers.get().get("content-encoding"), is(nullValue()));
+        assertThat(headers.get().get("content-length"), is(nullValue()));
+    }
+
+    @Test
+    public void givenClientRefusesGzip__whenAcceptingAnyOtherEncoding__thenResponseIsNotGzipped() throws Exception {
+        this.withProcessor(new CompressingProcessor((request, response) -> response.contenType("application/json").payload(this.big, "utf-8")));
+
+        try(Response response = this.client.newCall(this.requestBuilder().header("Accept-Encoding", "gzip;q=0, *").get().build()).execute()) {
+            assertThat(response.header("Content-Encoding"), is("deflate"));
+        }
+        try(Response response = this.client.newCall(this.requestBuilder().header("Accept-Encoding", "gzip;q=0, deflate;q=0, *").get().build()).execute()) {
+            assertThat(response.header("Content-Encoding"), is(nullValue()));
+            assertThat(response.body().string(), is(this.big));
+        }
+    }
+
+    @Test
+    public void givenRequestEncodedWithUnsupportedCoding__whenProcessing__thenUnsupportedMediaType() throws Exception {
+        AtomicBoolean processed = new AtomicBoolean(false);
+        this.withProcessor(new CompressingProcessor((request, response) -> processed.set(true)));
+
+        try(Response response = this.client.newCall(this.requestBuilder()
+                .header("Content-Encoding", "br")
+                .post(RequestBody.create(MediaType.parse("application/json"), new byte[] {1, 2, 3}))
+                .build()).execute()) {
+            assertThat(response.code(), is(415));
+            assertThat(response.header("Accept-Encoding"), is("gzip, deflate"));
+        }
+        assertThat(processed.get(), is(false));
+    }
+
+    private String big() {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            result.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append("}");
+        }
+        return result.append("]").toString();
+    }
+}
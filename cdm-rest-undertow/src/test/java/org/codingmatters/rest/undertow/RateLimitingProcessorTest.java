@@ -0,0 +1,84 @@
+package org.codingmatters.rest.undertow;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.codingmatters.rest.api.processors.RateLimitingProcessor;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RateLimitingProcessorTest extends AbstractUndertowTest {
+
+    private final OkHttpClient client = new OkHttpClient();
+
+    private int status(Request.Builder request) throws Exception {
+        try(Response response = this.client.newCall(request.get().build()).execute()) {
+            return response.code();
+        }
+    }
+
+    @Test
+    public void givenBurstIsExhausted__whenRequesting__then429WithRetryAfter() throws Exception {
+        RateLimitingProcessor processor = new RateLimitingProcessor((request, response) -> response.status(200), RateLimitingProcessor.Key.clientAddress(), 0.1, 2);
+        this.withProcessor(processor);
+
+        assertThat(this.status(this.requestBuilder()), is(200));
+        assertThat(this.status(this.requestBuilder()), is(200));
+        try(Response response = this.client.newCall(this.requestBuilder().get().build()).execute()) {
+            assertThat(response.code(), is(429));
+            assertThat(Integer.parseInt(response.header("Retry-After")) > 0, is(true));
+            assertThat(Integer.parseInt(response.header("Retry-After")) <= 10, is(true));
+        }
+        assertThat(processor.rejected(), is(1L));
+    }
+
+    @Test
+    public void givenHeaderKey__whenOneKeyIsExhausted__thenOtherKeysAreAdmitted() throws Exception {
+        this.withProcessor(new RateLimitingProcessor((request, response) -> response.status(200), RateLimitingProcessor.Key.header("X-Api-Key"), 0.1, 1));
+
+        assertThat(this.status(this.requestBuilder().header("X-Api-Key", "a")), is(200));
+        assertThat(this.status(this.requestBuilder().header("X-Api-Key", "a")), is(429));
+        assertThat(this.status(this.requestBuilder().header("X-Api-Key", "b")), is(200));
+    }
+
+    @Test
+    public void givenMoreDistinctKeysThanMaxKeys__whenRequesting__thenKeysStayBounded_andExtraKeysShareABucket() throws Exception {
+        RateLimitingProcessor processor = new RateLimitingProcessor((request, response) -> response.status(200), RateLimitingProcessor.Key.header("X-Api-Key"), 0.1, 1, 3);
+        this.withProcessor(processor);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(this.status(this.requestBuilder().header("X-Api-Key", "key-" + i)), is(200));
+        }
+        assertThat(this.status(this.requestBuilder().header("X-Api-Key", "key-3")), is(200));
+        assertThat(this.status(this.requestBuilder().header("X-Api-Key", "key-4")), is(429));
+        assertThat(processor.keys(), is(3));
+    }
+
+    @Test
+    public void givenRouteKey__whenRequestingDistinctResourcesOfTheSameRoute__thenTheyShareTheBucket() throws Exception {
+        AtomicReference<String> address = new AtomicReference<>();
+        this.withProcessor(new RateLimitingProcessor((request, response) -> {
+            address.set(request.clientAddress());
+            response.status(200);
+        }, RateLimitingProcessor.Key.route("/items/{id}", "/other"), 0.1, 1));
+
+        assertThat(this.status(this.requestBuilder("/items/1")), is(200));
+        assertThat(this.status(this.requestBuilder("/items/2")), is(429));
+        assertThat(this.status(this.requestBuilder("/other")), is(200));
+        assertThat(address.get() != null, is(true));
+    }
+
+    @Test
+    public void givenRateIsRespected__whenRequesting__thenAdmitted() throws Exception {
+        this.withProcessor(new RateLimitingProcessor((request, response) -> response.status(200), RateLimitingProcessor.Key.clientAddress(), 20, 1));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(this.status(this.requestBuilder()), is(200));
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.codingmatters.rest.undertow;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+import org.codingmatters.rest.api.RequestDelegate;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Allocated bytes per request for reading a few headers and query parameters the way generated processors do,
+ * lazy views against copying every header and parameter in a new map (the previous behaviour).
+ */
+@Ignore
+public class UndertowRequestDelegateMicroBenchmarkTest {
+
+    static private final int ITERATIONS = 1_000_000;
+
+    private final HttpServerExchange exchange = this.exchange();
+
+    @Test
+    public void views() throws Exception {
+        this.run("views", exchange -> {
+            UndertowRequestDelegate delegate = new UndertowRequestDelegate(exchange);
+            return this.reads(delegate.method(), delegate.headers(), delegate.queryParameters());
+        });
+    }
+
+    @Test
+    public void copies() throws Exception {
+        this.run("copies", exchange -> {
+            RequestDelegate.Method method = RequestDelegate.Method.UNIMPLEMENTED;
+            String methodString = exchange.getRequestMethod().toString().toUpperCase();
+            for (RequestDelegate.Method m : RequestDelegate.Method.values()) {
+                if(m.name().equals(methodString)) method = m;
+            }
+            Map<String, List<String>> headers = RequestDelegate.createHeaderMap();
+            for (HeaderValues values : exchange.getRequestHeaders()) {
+                headers.put(values.getHeaderName().toString(), new ArrayList<>(values));
+            }
+            Map<String, List<String>> query = RequestDelegate.createHeaderMap();
+            for (String name : exchange.getQueryParameters().keySet()) {
+                query.put(name, new ArrayList<>(exchange.getQueryParameters().get(name)));
+            }
+            return this.reads(method, headers, query);
+        });
+    }
+
+    private long reads(RequestDelegate.Method method, Map<String, List<String>> headers, Map<String, List<String>> query) {
+        long result = method.ordinal();
+        for (int i = 0; i < 3; i++) {
+            List<String> value = headers.get("x-tenant");
+            if(value != null && ! value.isEmpty()) result += value.get(0).length();
+            value = query.get("page");
+            if(value != null && ! value.isEmpty()) result += value.get(0).length();
+        }
+        return result;
+    }
+
+    private void run(String name, ToLongFunction<HttpServerExchange> request) {
+        long result = 0;
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            result += request.applyAsLong(this.exchange);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            result += request.applyAsLong(this.exchange);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+
+        System.out.printf("%-8s - %.1f ns/request - %.1f bytes/request (%d)\n",
+                name, (double) elapsed / ITERATIONS, (double) allocated / ITERATIONS, result);
+    }
+
+    private HttpServerExchange exchange() {
+        HttpServerExchange result = new HttpServerExchange(null);
+        result.setRequestMethod(Methods.GET);
+        String[][] headers = {
+                {"Host", "localhost:8080"}, {"User-Agent", "okhttp/3.14"}, {"Accept", "application/json"},
+                {"Accept-Encoding", "gzip"}, {"Authorization", "Bearer abcdef"}, {"X-Request-Id", "42"},
+                {"X-Tenant", "tenant"}
+        };
+        for (String[] header : headers) {
+            result.getRequestHeaders().add(new HttpString(header[0]), header[1]);
+        }
+        result.addQueryParam("page", "2");
+        result.addQueryParam("size", "50");
+        result.addQueryParam("sort", "name");
+        return result;
+    }
+}
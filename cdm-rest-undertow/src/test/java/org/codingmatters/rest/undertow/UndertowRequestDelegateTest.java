@@ -2,8 +2,11 @@ package org.codingmatters.rest.undertow;
 
 import okhttp3.OkHttpClient;
 import org.codingmatters.rest.api.RequestDelegate;
+import org.codingmatters.rest.io.content.ContentHelper;
 import org.junit.Test;
 
+import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
@@ -95,6 +98,38 @@ public class UndertowRequestDelegateTest extends AbstractUndertowTest {
         assertThat(payload.get(), is(requestPayload));
     }
 
+    @Test
+    public void payloadStream() throws Exception {
+        AtomicReference<String> payload = new AtomicReference<>();
+        AtomicReference<String> afterStream = new AtomicReference<>();
+        this.withProcessor((requestDeleguate, responseDeleguate) -> {
+            try(InputStream in = requestDeleguate.payloadStream()) {
+                payload.set(new String(ContentHelper.bytes(in)));
+            }
+            afterStream.set(this.readAsString(requestDeleguate));
+        });
+
+        String requestPayload = "{\"yop\":\"yop\"}";
+        this.client.newCall(this.requestBuilder().post(this.jsonBody(requestPayload)).build()).execute();
+        assertThat(payload.get(), is(requestPayload));
+        assertThat(afterStream.get(), is(""));
+    }
+
+    @Test
+    public void payloadStream_afterPayload() throws Exception {
+        AtomicReference<String> payload = new AtomicReference<>();
+        this.withProcessor((requestDeleguate, responseDeleguate) -> {
+            this.readAsString(requestDeleguate);
+            try(InputStream in = requestDeleguate.payloadStream()) {
+                payload.set(new String(ContentHelper.bytes(in)));
+            }
+        });
+
+        String requestPayload = "{\"yop\":\"yop\"}";
+        this.client.newCall(this.requestBuilder().post(this.jsonBody(requestPayload)).build()).execute();
+        assertThat(payload.get(), is(requestPayload));
+    }
+
     @Test
     public void queryParameters_singleParams() throws Exception {
         AtomicReference<Map<String, List<String>>> queryParameters = new AtomicReference<>();
@@ -184,6 +219,23 @@ public class UndertowRequestDelegateTest extends AbstractUndertowTest {
         assertThat( req.get().headers().get( "TOTO" ).get( 0 ), is( "val1" ) );
     }
 
+    @Test
+    public void givenHeadersAndQueryParameters__whenPuttingValues__thenVisibleFromLaterCalls() throws Exception {
+        AtomicReference<RequestDelegate> req = new AtomicReference<>();
+        this.withProcessor((requestDeleguate, responseDeleguate) -> {
+            requestDeleguate.headers().put("added", Collections.singletonList("header"));
+            requestDeleguate.queryParameters().put("added", Collections.singletonList("param"));
+            req.set(requestDeleguate);
+        });
+
+        this.client.newCall(this.requestBuilder("/request/path?n=v").addHeader("toto", "val1").get().build()).execute();
+
+        assertThat(req.get().headers().get("toto"), contains("val1"));
+        assertThat(req.get().headers().get("ADDED"), contains("header"));
+        assertThat(req.get().queryParameters().get("n"), contains("v"));
+        assertThat(req.get().queryParameters().get("added"), contains("param"));
+    }
+
     @Test
     public void uriParams() throws Exception {
         AtomicReference<RequestDelegate> req = new AtomicReference<>();
@@ -2,9 +2,19 @@ package org.codingmatters.rest.undertow;
 
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import org.codingmatters.rest.io.Content;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -12,6 +22,9 @@ import static org.junit.Assert.assertThat;
  */
 public class UndertowResponseDelegateTest extends AbstractUndertowTest {
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     private OkHttpClient client = new OkHttpClient();
 
     @Test
@@ -47,4 +60,73 @@ public class UndertowResponseDelegateTest extends AbstractUndertowTest {
 
         assertThat(this.client.newCall(this.requestBuilder().get().build()).execute().body().string(), is("yop yop"));
     }
+
+    @Test
+    public void bytePayloadHasContentLength() throws Exception {
+        this.withProcessor((requestDeleguate, responseDeleguate) -> {responseDeleguate.payload(ByteBuffer.wrap("yop yop".getBytes()));});
+
+        try(Response response = this.client.newCall(this.requestBuilder().get().build()).execute()) {
+            assertThat(response.header("Content-Length"), is("7"));
+            assertThat(response.body().string(), is("yop yop"));
+        }
+    }
+
+    @Test
+    public void givenPayloadSetTwice__whenRequesting__thenBothPayloadsAreSent() throws Exception {
+        this.withProcessor((requestDeleguate, responseDeleguate) -> {
+            responseDeleguate.payload("yop ".getBytes());
+            responseDeleguate.payload("yop".getBytes());
+        });
+
+        try(Response response = this.client.newCall(this.requestBuilder().get().build()).execute()) {
+            assertThat(response.body().string(), is("yop yop"));
+        }
+    }
+
+    @Test
+    public void filePayloadIsTransferredWithContentLength() throws Exception {
+        File file = this.tmp.newFile();
+        byte[] bytes = new byte[100000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i % 128);
+        }
+        try(FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+        this.withProcessor((requestDeleguate, responseDeleguate) -> {responseDeleguate.payload(Content.from(file).asStream());});
+
+        try(Response response = this.client.newCall(this.requestBuilder().get().build()).execute()) {
+            assertThat(response.header("Content-Length"), is("100000"));
+            assertThat(response.body().bytes(), is(bytes));
+        }
+    }
+
+    @Test
+    public void givenFilePayload__whenBytesWrittenAfter__thenBothAreSentWithoutFileLength() throws Exception {
+        File file = this.tmp.newFile();
+        try(FileOutputStream out = new FileOutputStream(file)) {
+            out.write("yop ".getBytes());
+        }
+        this.withProcessor((requestDeleguate, responseDeleguate) -> {
+            responseDeleguate.payload(Content.from(file).asStream());
+            responseDeleguate.payload("yop".getBytes());
+        });
+
+        try(Response response = this.client.newCall(this.requestBuilder().get().build()).execute()) {
+            assertThat(response.header("Content-Length"), is(nullValue()));
+            assertThat(response.body().string(), is("yop yop"));
+        }
+    }
+
+    @Test
+    public void streamedPayload() throws Exception {
+        this.withProcessor((requestDeleguate, responseDeleguate) -> {
+            try(OutputStream out = responseDeleguate.payloadStream()) {
+                out.write("yop ".getBytes());
+                out.write("yop".getBytes());
+            }
+        });
+
+        assertThat(this.client.newCall(this.requestBuilder().get().build()).execute().body().string(), is("yop yop"));
+    }
 }
@@ -0,0 +1,62 @@
+package org.codingmatters.rest.undertow.internal;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void givenLimitReached__whenAcquiring__thenRejected() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+
+        assertThat(limiter.tryAcquire(), is(true));
+        assertThat(limiter.tryAcquire(), is(true));
+        assertThat(limiter.tryAcquire(), is(false));
+        assertThat(limiter.inFlight(), is(2));
+        assertThat(limiter.rejected(), is(1L));
+    }
+
+    @Test
+    public void givenSaturatedWithSteadyRtt__whenReleasing__thenLimitGrows() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+
+        for (int i = 0; i < 100; i++) {
+            while(limiter.tryAcquire());
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        assertThat(limiter.limit(), is(greaterThan(10)));
+    }
+
+    @Test
+    public void givenSaturated__whenRttRises__thenLimitShrinks() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 1, 50);
+
+        for (int i = 0; i < 50; i++) {
+            while(limiter.tryAcquire());
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        for (int i = 0; i < 50; i++) {
+            while(limiter.tryAcquire());
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+
+        assertThat(limiter.limit(), is(lessThan(50)));
+    }
+
+    @Test
+    public void givenApplicationLimited__whenRttRises__thenLimitIsKept() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 1, 100);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(i < 50 ? 10 : 100));
+        }
+
+        assertThat(limiter.limit(), is(50));
+    }
+}
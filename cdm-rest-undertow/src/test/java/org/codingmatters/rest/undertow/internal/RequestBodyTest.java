@@ -5,7 +5,9 @@ import io.undertow.server.HttpServerExchange;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import okio.BufferedSink;
 import org.codingmatters.rest.io.CountedReferenceTemporaryFile;
+import org.codingmatters.rest.io.content.ContentHelper;
 import org.codingmatters.rest.undertow.support.UndertowResource;
 import org.junit.Rule;
 import org.junit.Test;
@@ -16,8 +18,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 public class RequestBodyTest {
 
@@ -67,9 +72,141 @@ public class RequestBodyTest {
         assertThat(inputStreamClass.get(), is(CountedReferenceTemporaryFile.CountedReferenceInputStream.class.getName()));
     }
 
+    @Test
+    public void givenChunkedRequestBody__whenUnderThreshold__thenKeptInPooledBuffers_andReleasedOnClose() throws Exception {
+        RequestBodyBudget budget = new RequestBodyBudget(10000, 1000);
+        AtomicReference<String> inputStreamClass = new AtomicReference<>(null);
+        AtomicReference<Long> held = new AtomicReference<>(null);
+        this.handler = (exchange) -> {
+            try(RequestBody body = RequestBody.from(exchange, budget) ; InputStream inputStream = body.inputStream()) {
+                inputStreamClass.set(inputStream.getClass().getName());
+                held.set(budget.held());
+            }
+        };
+
+        this.chunkedRequestWithPayload(new byte[500]);
+
+        assertThat(inputStreamClass.get(), startsWith(PooledBufferRequestBody.class.getName()));
+        assertThat(held.get(), is(500L));
+        assertThat(budget.held(), is(0L));
+        assertThat(budget.inMemoryBytes(), is(500L));
+    }
+
+    @Test
+    public void givenMidSizeRequestBody__whenBodyIsRead__thenPooledBuffersAreUsed_andContentIsPreserved() throws Exception {
+        byte[] payload = new byte[100000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i % 251);
+        }
+        AtomicReference<String> inputStreamClass = new AtomicReference<>(null);
+        AtomicReference<byte[]> read = new AtomicReference<>(null);
+        this.handler = (exchange) -> {
+            try(RequestBody body = RequestBody.from(exchange) ; InputStream inputStream = body.inputStream()) {
+                inputStreamClass.set(inputStream.getClass().getName());
+                read.set(ContentHelper.bytes(inputStream));
+            }
+        };
+
+        this.requestWithPayload(payload);
+
+        assertThat(inputStreamClass.get(), startsWith(PooledBufferRequestBody.class.getName()));
+        assertThat(read.get(), is(payload));
+    }
+
+    @Test
+    public void givenChunkedRequestBody__whenOverThreshold__thenSpilled() throws Exception {
+        RequestBodyBudget budget = new RequestBodyBudget(10000, 1000);
+        AtomicReference<String> inputStreamClass = new AtomicReference<>(null);
+        AtomicReference<Integer> length = new AtomicReference<>(null);
+        this.handler = (exchange) -> {
+            try(RequestBody body = RequestBody.from(exchange, budget) ; InputStream inputStream = body.inputStream()) {
+                inputStreamClass.set(inputStream.getClass().getName());
+                length.set(ContentHelper.bytes(inputStream).length);
+            }
+        };
+
+        this.chunkedRequestWithPayload(new byte[5000]);
+
+        assertThat(inputStreamClass.get(), is(CountedReferenceTemporaryFile.CountedReferenceInputStream.class.getName()));
+        assertThat(length.get(), is(5000));
+        assertThat(budget.held(), is(0L));
+        assertThat(budget.spills(), is(1L));
+        assertThat(budget.spilledBytes(), is(5000L));
+    }
+
+    @Test
+    public void givenBudgetExhausted__whenBodyUnderThreshold__thenSpilled() throws Exception {
+        RequestBodyBudget budget = new RequestBodyBudget(10000, 1000);
+        assertThat(budget.reserve(9800), is(true));
+        AtomicReference<String> inputStreamClass = new AtomicReference<>(null);
+        this.handler = (exchange) -> {
+            try(RequestBody body = RequestBody.from(exchange, budget) ; InputStream inputStream = body.inputStream()) {
+                inputStreamClass.set(inputStream.getClass().getName());
+            }
+        };
+
+        this.requestWithPayload(new byte[500]);
+
+        assertThat(inputStreamClass.get(), is(CountedReferenceTemporaryFile.CountedReferenceInputStream.class.getName()));
+        assertThat(budget.spilledBytes(), is(greaterThan(0L)));
+        assertThat(budget.held(), is(9800L));
+    }
+
+    @Test
+    public void givenStreamFailsMidRead__whenBodyIsRead__thenReservedBytesAreReleased() throws Exception {
+        RequestBodyBudget budget = new RequestBodyBudget(10000, 5000);
+        InputStream failing = new InputStream() {
+            private int remaining = 3000;
+
+            @Override
+            public int read() throws IOException {
+                if(this.remaining-- > 0) return 'a';
+                throw new IOException("connection reset");
+            }
+        };
+
+        try {
+            budget.read(failing, -1);
+            fail("expected read failure");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("connection reset"));
+        }
+
+        assertThat(budget.held(), is(0L));
+    }
+
+    @Test
+    public void givenByteArrayBody__whenClosedTwice__thenReleasedOnce() throws Exception {
+        RequestBodyBudget budget = new RequestBodyBudget(10000, 5000);
+        assertThat(budget.reserve(3000), is(true));
+        RequestBody body = new ByteArrayRequestBody(new byte[1000], budget);
+
+        body.close();
+        body.close();
+
+        assertThat(budget.held(), is(2000L));
+    }
+
+    private void chunkedRequestWithPayload(byte[] bytes) throws IOException {
+        this.client.newCall(
+            new Request.Builder().url(this.undertow.baseUrl())
+                    .post(new okhttp3.RequestBody() {
+                        @Override
+                        public MediaType contentType() {
+                            return MediaType.parse("application/octet-stream");
+                        }
+
+                        @Override
+                        public void writeTo(BufferedSink sink) throws IOException {
+                            sink.write(bytes);
+                        }
+                    }).build()
+        ).execute().close();
+    }
+
     private byte[] big() throws IOException {
         ByteArrayOutputStream result = new ByteArrayOutputStream();
-        while(result.size() < 1500) {
+        while(result.size() < RequestBodyBudget.server().threshold() + 500) {
             result.write("more content".getBytes());
         }
         return result.toByteArray();